@@ -0,0 +1,127 @@
+package com.example.ocrproject.service;
+
+import java.util.*;
+
+/**
+ * Deterministic synthetic inputs for the benchmarks: receipts shaped like Korean mart receipts, recipe catalogs of
+ * any size over a realistic ingredient vocabulary, and Gemini / TheMealDB response bodies.
+ */
+final class BenchmarkData {
+
+    static final long SEED = 42;
+
+    // Korean ingredient names as they appear in recipe "need" lists, most common first
+    static final List<String> INGREDIENTS = List.of(
+            "양파", "대파", "계란", "밥", "고추장", "간장", "토마토", "당근", "김치", "설탕", "빵", "마요네즈", "두부",
+            "돼지고기", "닭고기", "감자", "치즈", "참치", "요거트", "오징어", "어묵", "시금치", "소고기", "사과", "베이컨",
+            "마늘", "라면", "떡", "햄", "참기름", "양배추", "애호박", "순두부", "소시지", "새우", "버터", "멸치", "된장",
+            "고춧가루", "고추", "고구마", "당면", "우유", "버섯", "콩나물", "배추", "국수", "오트", "쌀", "깻잎");
+
+    // Receipt item lines: lexicon hits with origin/unit noise, plus brand items only Gemini can resolve
+    private static final List<String> KNOWN_ITEMS = List.of(
+            "국산양파1.5kg", "서울우유 1L", "게란 30구", "대파 1단", "두부 300g", "삼겹살 600g", "깐마늘 200g",
+            "신라면 5입", "스팸 200g", "방울토마토 500g", "당근 1kg", "애호박1입", "콩나물 300g", "모짜렐라 200g",
+            "동원참치 150g", "태양초고추장 500g", "양조간장 1.7L", "팽이버섯 3입", "알배추 1통", "꿀고구마 1kg");
+    private static final List<String> BRAND_ITEMS = List.of(
+            "CJ 비비고 왕교자 1.05kg", "풀무원 생가득 새송이", "오뚜기 진짬뽕 4입", "농심 올리브 짜파게티",
+            "하림 닭가슴살 슬라이스", "빙그레 바나나맛우유", "롯데 칠성사이다 1.5L", "청정원 순창 쌈장");
+
+    private BenchmarkData() {}
+
+    static String receipt(Random rnd) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("이마트 성수점\n사업자 206-86-50913 대표 강희석\n2024-05-").append(10 + rnd.nextInt(18))
+                .append(" 18:").append(10 + rnd.nextInt(49)).append("  POS 03\n");
+        int items = 8 + rnd.nextInt(18);
+        int total = 0;
+        for (int i = 0; i < items; i++) {
+            List<String> pool = rnd.nextInt(4) == 0 ? BRAND_ITEMS : KNOWN_ITEMS;
+            int price = (5 + rnd.nextInt(200)) * 100;
+            total += price;
+            sb.append(pool.get(rnd.nextInt(pool.size()))).append("    1    ").append(String.format("%,d", price)).append('\n');
+        }
+        sb.append("합계                ").append(String.format("%,d", total)).append('\n');
+        sb.append("부가세              ").append(String.format("%,d", total / 11)).append('\n');
+        sb.append("카드결제            ").append(String.format("%,d", total)).append('\n');
+        return sb.toString();
+    }
+
+    static List<String> receipts(int n) {
+        Random rnd = new Random(SEED);
+        List<String> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) out.add(receipt(rnd));
+        return out;
+    }
+
+    /** Gemini-style "a, b, c" answer with duplicates in mixed case, like real model output. */
+    static String geminiItems(Random rnd, int n) {
+        StringJoiner sj = new StringJoiner(", ");
+        for (int i = 0; i < n; i++) {
+            String item = INGREDIENTS.get(rnd.nextInt(20));
+            sj.add(rnd.nextInt(5) == 0 ? item + " " : item);
+        }
+        sj.add("Cheese").add("cheese").add("\n우유");
+        return sj.toString();
+    }
+
+    static List<String> ingredientLists(int n) {
+        Random rnd = new Random(SEED);
+        List<String> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) out.add(geminiItems(rnd, 4 + rnd.nextInt(12)));
+        return out;
+    }
+
+    /** Catalog of n recipes; ingredient popularity is skewed so some postings are long, like a real catalog. */
+    static List<RecipeEngine.Recipe> catalog(int n) {
+        Random rnd = new Random(SEED);
+        List<String> vocabulary = new ArrayList<>(INGREDIENTS);
+        for (int i = 0; i < 450; i++) vocabulary.add("재료" + i); // long tail
+        List<RecipeEngine.Recipe> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            int k = 3 + rnd.nextInt(6);
+            LinkedHashSet<String> need = new LinkedHashSet<>();
+            while (need.size() < k) {
+                double u = rnd.nextDouble();
+                need.add(vocabulary.get((int) (u * u * vocabulary.size())));
+            }
+            out.add(new RecipeEngine.Recipe("레시피 " + i, new ArrayList<>(need), "설명 " + i));
+        }
+        return out;
+    }
+
+    static String geminiResponse(String text) {
+        return """
+                {"candidates":[{"content":{"parts":[{"text":%s}],"role":"model"},"finishReason":"STOP","index":0,
+                "safetyRatings":[{"category":"HARM_CATEGORY_HARASSMENT","probability":"NEGLIGIBLE"}]}],
+                "usageMetadata":{"promptTokenCount":812,"candidatesTokenCount":41,"totalTokenCount":853},
+                "modelVersion":"gemini-1.5-pro-002"}
+                """.formatted(quote(text));
+    }
+
+    static String mealLookup(int id) {
+        StringBuilder sb = new StringBuilder("{\"meals\":[{\"idMeal\":\"").append(52700 + id)
+                .append("\",\"strMeal\":\"Spicy Korean Beef Bulgogi with Rice\",\"strCategory\":\"Beef\",\"strArea\":\"Korean\",")
+                .append("\"strInstructions\":").append(quote("Slice the beef thinly. Mix soy sauce, sugar, sesame oil and garlic. "
+                        .repeat(8)))
+                .append(",\"strMealThumb\":\"https://www.themealdb.com/images/media/meals/x.jpg\",\"strTags\":null");
+        String[] ings = {"Beef", "Soy Sauce", "Sugar", "Sesame Oil", "Garlic", "Green Onions", "Onion", "Carrots",
+                "Black Pepper", "Rice", "Eggs", "Kimchi", "Water", "Salt", "Ginger", "", "", "", "", ""};
+        for (int i = 0; i < 20; i++) {
+            sb.append(",\"strIngredient").append(i + 1).append("\":\"").append(ings[i]).append('"');
+            sb.append(",\"strMeasure").append(i + 1).append("\":\"").append(ings[i].isEmpty() ? "" : (i + 1) + " tbs").append('"');
+        }
+        return sb.append(",\"strSource\":null}]}").toString();
+    }
+
+    static String mealFilter(int meals) {
+        StringJoiner sj = new StringJoiner(",", "{\"meals\":[", "]}");
+        for (int i = 0; i < meals; i++) {
+            sj.add("{\"strMeal\":\"Meal " + i + "\",\"strMealThumb\":\"https://x/" + i + ".jpg\",\"idMeal\":\"" + (52700 + i) + "\"}");
+        }
+        return sj.toString();
+    }
+
+    private static String quote(String s) {
+        return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + "\"";
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.ocrproject.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pre-processing of a phone-sized (3024x4032) receipt photo before the Vision call: decode with subsampling,
+ * rotate, resize, grayscale and re-encode. The payload size before and after is printed at setup; Vision's own
+ * latency for either payload is measured by the load test against the stub upstreams.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ImagePreprocessBenchmark {
+
+    private final ImagePreprocessor preprocessor = new ImagePreprocessor(true, 2048, true, 0.85f);
+    private byte[] photo;
+
+    @Setup
+    public void setup() throws IOException {
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        ImageIO.write(syntheticReceipt(3024, 4032), "jpg", encoded);
+        photo = encoded.toByteArray();
+        System.out.printf("%noriginal %d bytes, pre-processed %d bytes%n", photo.length, process().size());
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream process() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        preprocessor.process(new ByteArrayInputStream(photo), out);
+        return out;
+    }
+
+    private static BufferedImage syntheticReceipt(int w, int h) {
+        BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        g.setColor(new Color(240, 236, 228));
+        g.fillRect(0, 0, w, h);
+        g.setColor(new Color(30, 30, 30));
+        g.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 64));
+        for (int y = 150, i = 0; y < h - 100; y += 90, i++) {
+            g.drawString(String.format("ITEM %03d  EGG 10P        %,8d", i, 3000 + i * 170), 120, y);
+        }
+        g.dispose();
+        return img;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.ocrproject.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response parsing as done on every upstream call: Gemini generateContent, TheMealDB filter and lookup.
+ * The *Tree methods are the previous path (body decoded to a String, then readTree) and the *Streaming methods
+ * the current one (JsonParser over the body stream). Compare gc.alloc.rate.norm (B/op) between the pairs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JsonParsingBenchmark {
+
+    private static final int MAX_MEALS = 15;
+
+    /** filter.php entries; common ingredients list a few hundred meals. */
+    @Param({"40", "300"})
+    public int filterMeals;
+
+    private final ObjectMapper om = new ObjectMapper();
+    private final JsonFactory json = new JsonFactory();
+    private GeminiService gemini;
+    private byte[] geminiBody;
+    private byte[] filterBody;
+    private byte[] lookupBody;
+
+    @Setup
+    public void setup() {
+        // Only the parsers are exercised; no cache, translation memory or network is touched
+        gemini = new GeminiService(null, null, PipelineMetrics.noop(), ConcurrencyLimits.unlimited(), "http://localhost", Duration.ofSeconds(1), Duration.ofSeconds(1), 20, 12000, 1, 256, false);
+        geminiBody = bytes(BenchmarkData.geminiResponse(BenchmarkData.geminiItems(new java.util.Random(BenchmarkData.SEED), 12)));
+        filterBody = bytes(BenchmarkData.mealFilter(filterMeals));
+        lookupBody = bytes(BenchmarkData.mealLookup(1));
+    }
+
+    @Benchmark
+    public String geminiTree() throws IOException {
+        JsonNode root = om.readTree(new String(geminiBody, StandardCharsets.UTF_8));
+        return root.path("candidates").path(0).path("content").path("parts").path(0).path("text").asText();
+    }
+
+    @Benchmark
+    public String geminiStreaming() {
+        return gemini.parseText(new ByteArrayInputStream(geminiBody));
+    }
+
+    @Benchmark
+    public List<String> mealDbFilterTree() throws IOException {
+        List<String> ids = new ArrayList<>();
+        for (JsonNode m : om.readTree(new String(filterBody, StandardCharsets.UTF_8)).path("meals")) {
+            ids.add(m.path("idMeal").asText());
+        }
+        return ids;
+    }
+
+    @Benchmark
+    public List<String> mealDbFilterStreaming() throws IOException {
+        try (JsonParser p = json.createParser(new ByteArrayInputStream(filterBody))) {
+            return RecipeApiService.readMealIds(p, MAX_MEALS);
+        }
+    }
+
+    @Benchmark
+    public Object mealDbLookupTree() throws IOException {
+        JsonNode meal = om.readTree(new String(lookupBody, StandardCharsets.UTF_8)).path("meals").path(0);
+        List<String> need = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            String ing = meal.path("strIngredient" + i).asText("");
+            String measure = meal.path("strMeasure" + i).asText("");
+            if (ing.isBlank()) continue;
+            need.add(measure.isBlank() ? ing : (ing + " " + measure).trim());
+        }
+        return new RecipeApiService.Meal(meal.path("strMeal").asText(), meal.path("strInstructions").asText(), need);
+    }
+
+    @Benchmark
+    public Object mealDbLookupStreaming() throws IOException {
+        try (JsonParser p = json.createParser(new ByteArrayInputStream(lookupBody))) {
+            return RecipeApiService.readMeal(p);
+        }
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
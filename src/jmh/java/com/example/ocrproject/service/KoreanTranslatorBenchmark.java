@@ -0,0 +1,79 @@
+package com.example.ocrproject.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Translating one meal (name + 20 ingredient lines): the compiled trie against the replaceAll chain
+ * RecipeApiService used before.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class KoreanTranslatorBenchmark {
+
+    private static final List<String> MEAL = List.of(
+            "Spicy Korean Bulgogi with Rice",
+            "Beef 500g", "Soy Sauce 3 tbs", "Sesame Oil 1 tbs", "Sugar 2 tbs", "Garlic 4 cloves",
+            "Green Onions 3 chopped", "Onion 1 sliced", "Carrots 2", "Black Pepper pinch", "Water 100ml",
+            "Rice 2 cups", "Eggs 2", "Kimchi 1 cup", "Vegetable Oil 2 tbs", "Salt to taste",
+            "Gochujang 1 tbs", "Ginger 1 tsp", "Mushrooms 200g", "Spinach 1 handful", "Sesame Seed garnish");
+
+    private KoreanTranslator translator;
+
+    @Setup
+    public void setup() {
+        translator = new KoreanTranslator();
+    }
+
+    @Benchmark
+    public void trie(Blackhole bh) {
+        for (String s : MEAL) bh.consume(translator.translate(s));
+    }
+
+    @Benchmark
+    public void regexChain(Blackhole bh) {
+        for (String s : MEAL) bh.consume(regexChain(s));
+    }
+
+    // The previous RecipeApiService.toKorean, kept verbatim as the baseline
+    static String regexChain(String s) {
+        if (s == null || s.isBlank()) return s;
+        String out = s;
+        out = out.replaceAll("(?i)\\begg(s)?\\b", "계란");
+        out = out.replaceAll("(?i)\\bonion(s)?\\b", "양파");
+        out = out.replaceAll("(?i)\\bgarlic\\b", "마늘");
+        out = out.replaceAll("(?i)\\bchicken\\b", "닭고기");
+        out = out.replaceAll("(?i)\\bbeef\\b", "소고기");
+        out = out.replaceAll("(?i)\\bpork\\b", "돼지고기");
+        out = out.replaceAll("(?i)\\brice\\b", "밥");
+        out = out.replaceAll("(?i)\\bnoodles?\\b", "면");
+        out = out.replaceAll("(?i)\\btomato(es)?\\b", "토마토");
+        out = out.replaceAll("(?i)\\bpotato(es)?\\b", "감자");
+        out = out.replaceAll("(?i)\\bcarrot(s)?\\b", "당근");
+        out = out.replaceAll("(?i)\\bsoy sauce\\b", "간장");
+        out = out.replaceAll("(?i)\\bsalt\\b", "소금");
+        out = out.replaceAll("(?i)\\bpepper\\b", "후추");
+        out = out.replaceAll("(?i)\\bsugar\\b", "설탕");
+        out = out.replaceAll("(?i)\\bmilk\\b", "우유");
+        out = out.replaceAll("(?i)\\bbutter\\b", "버터");
+        out = out.replaceAll("(?i)\\bcheese\\b", "치즈");
+        out = out.replaceAll("(?i)\\byogurt\\b", "요거트");
+        out = out.replaceAll("(?i)\\btuna\\b", "참치");
+        out = out.replaceAll("(?i)\\bbread\\b", "빵");
+        out = out.replaceAll("(?i)\\bwater\\b", "물");
+        out = out.replaceAll("(?i)\\boil\\b", "기름");
+        out = out.replaceAll("(?i)\\bsesame oil\\b", "참기름");
+        out = out.replaceAll("(?i)\\bgreen onion(s)?\\b", "대파");
+        out = out.replaceAll("(?i)\\bbulgogi\\b", "불고기");
+        out = out.replaceAll("(?i)\\bkimchi\\b", "김치");
+        out = out.replaceAll("(?i)\\bkimbap|gimbap\\b", "김밥");
+        out = out.replaceAll("(?i)\\bramen|ramen\\b", "라면");
+        out = out.replaceAll("(?i)\\bbibimbap\\b", "비빔밥");
+        out = out.replaceAll("(?i)\\btteokbokki|topokki\\b", "떡볶이");
+        return out;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.ocrproject.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of publishing a catalog snapshot (what a reload does off the request path), and its memory per recipe.
+ * At setup the retained heap of a snapshot is measured (used heap after GC, before and after building it) and
+ * printed next to {@link RecipeEngine.Catalog#bytes}'s estimate and the footprint of the same recipes as
+ * {@code List<Recipe>} records, the form the catalog used to be held in.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RecipeCatalogBenchmark {
+
+    @Param({"1000", "100000"})
+    public int catalogSize;
+
+    private List<RecipeEngine.Recipe> recipes;
+
+    @Setup
+    public void setup() throws InterruptedException {
+        // Snapshot alone: the list it is built from is already garbage when the heap is measured
+        long start = usedHeap();
+        RecipeEngine.Catalog catalog = new RecipeEngine.Catalog(BenchmarkData.catalog(catalogSize));
+        long snapshot = usedHeap() - start;
+
+        start = usedHeap();
+        recipes = BenchmarkData.catalog(catalogSize);
+        long list = usedHeap() - start;
+
+        System.out.printf("%n%d recipes: snapshot %d B/recipe measured, %d B/recipe estimated; List<Recipe> %d B/recipe%n",
+                catalogSize, snapshot / catalogSize, catalog.bytes() / catalogSize, list / catalogSize);
+        Reference.reachabilityFence(catalog);
+    }
+
+    @Benchmark
+    public Object buildSnapshot() {
+        return new RecipeEngine.Catalog(recipes);
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
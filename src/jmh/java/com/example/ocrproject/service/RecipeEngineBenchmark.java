@@ -0,0 +1,32 @@
+package com.example.ocrproject.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Scoring + top-K over catalogs of 1k-100k recipes, with ingredient lists as Gemini returns them. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RecipeEngineBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int catalogSize;
+
+    private RecipeEngine engine;
+    private List<List<String>> inputs;
+    private int next;
+
+    @Setup
+    public void setup() {
+        engine = new RecipeEngine(BenchmarkData.catalog(catalogSize));
+        inputs = BenchmarkData.ingredientLists(256).stream().map(IngredientExtractor::parseCommaSeparated).toList();
+    }
+
+    @Benchmark
+    public Object recommendTop5() {
+        List<String> ingredients = inputs.get(next++ & 255);
+        return engine.recommend(ingredients, 5);
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.ocrproject.service;
+
+import com.example.ocrproject.dto.RecipeSuggestion;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Wall-clock time of the TheMealDB fan-out (two filters, then up to 15 lookups) against a local stand-in that
+ * answers each lookup after 100 ms: one request in flight (the old serial behaviour) versus the default limit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RecipeFanoutBenchmark {
+
+    private static final long LOOKUP_LATENCY_MS = 100;
+
+    @Param({"1", "6"})
+    public int maxConcurrency;
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private RecipeApiService service;
+
+    @Setup
+    public void setup() throws IOException {
+        serverThreads = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "mealdb-stub");
+            t.setDaemon(true);
+            return t;
+        });
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(serverThreads);
+        server.createContext("/api/filter.php", ex -> respond(ex, IntStream.rangeClosed(1, 20)
+                .mapToObj(i -> "{\"idMeal\":\"" + i + "\"}")
+                .collect(Collectors.joining(",", "{\"meals\":[", "]}"))));
+        server.createContext("/api/lookup.php", ex -> {
+            String id = ex.getRequestURI().getQuery().substring("i=".length());
+            try {
+                Thread.sleep(LOOKUP_LATENCY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(ex, "{\"meals\":[{\"idMeal\":\"" + id + "\",\"strMeal\":\"Egg Fried Rice " + id + "\","
+                    + "\"strInstructions\":\"Fry.\",\"strIngredient1\":\"Egg\",\"strMeasure1\":\"2\"}]}");
+        });
+        server.start();
+        String base = "http://localhost:" + server.getAddress().getPort() + "/api/";
+        service = new RecipeApiService(base, Duration.ofSeconds(30), maxConcurrency);
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Benchmark
+    public List<RecipeSuggestion> fanout() {
+        return service.fetchRecipesByPrimaryIngredients(List.of("계란", "밥"));
+    }
+
+    private static void respond(HttpExchange ex, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().add("Content-Type", "application/json");
+        ex.sendResponseHeaders(200, body.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
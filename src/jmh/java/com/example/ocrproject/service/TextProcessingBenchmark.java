@@ -0,0 +1,80 @@
+package com.example.ocrproject.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request text work on synthetic receipts: parsing the Gemini answer, lexicon extraction (with the previous
+ * contains()-loop naiveExtract as a baseline) and the tiered line classifier in local mode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TextProcessingBenchmark {
+
+    private List<String> receipts;
+    private List<String> answers;
+    private IngredientLexicon lexicon;
+    private IngredientExtractor localExtractor;
+    private int next;
+
+    @Setup
+    public void setup() {
+        receipts = BenchmarkData.receipts(256);
+        answers = BenchmarkData.ingredientLists(256);
+        lexicon = new IngredientLexicon("");
+        localExtractor = new IngredientExtractor(null, lexicon, PipelineMetrics.noop(), "local");
+    }
+
+    @Benchmark
+    public List<String> parseCommaSeparated() {
+        return IngredientExtractor.parseCommaSeparated(answers.get(next++ & 255));
+    }
+
+    @Benchmark
+    public List<String> lexiconExtract() {
+        return lexicon.extract(receipts.get(next++ & 255));
+    }
+
+    @Benchmark
+    public List<String> naiveExtractBaseline() {
+        return naiveExtract(receipts.get(next++ & 255));
+    }
+
+    @Benchmark
+    public IngredientExtractor.Extraction classifyLinesLocal() {
+        return localExtractor.extract(receipts.get(next++ & 255));
+    }
+
+    // The previous OcrController.naiveExtract, kept verbatim as the baseline
+    static List<String> naiveExtract(String text) {
+        if (text == null) return List.of();
+        String lower = text.toLowerCase();
+        String[][] keywords = new String[][]{
+                {"계란", "달걀", "egg"},
+                {"밥", "쌀", "rice"},
+                {"김치", "kimchi"},
+                {"양파", "onion"},
+                {"감자", "potato"},
+                {"당근", "carrot"},
+                {"사과", "apple"},
+                {"치즈", "cheese"},
+                {"베이컨", "bacon"},
+                {"빵", "bread"},
+                {"토마토", "tomato"},
+                {"참치", "tuna"},
+                {"요거트", "yogurt"},
+                {"우유", "milk"},
+                {"오트", "oat"},
+        };
+        Set<String> found = new LinkedHashSet<>();
+        for (String[] group : keywords) {
+            for (String k : group) {
+                if (lower.contains(k)) { found.add(group[0]); break; }
+            }
+        }
+        return new ArrayList<>(found);
+    }
+}
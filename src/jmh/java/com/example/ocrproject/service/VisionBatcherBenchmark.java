@@ -0,0 +1,106 @@
+package com.example.ocrproject.service;
+
+import com.google.cloud.vision.v1.*;
+import com.google.protobuf.ByteString;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * OCR calls from 32 concurrent callers against a loopback gRPC stand-in for Vision that answers each
+ * batchAnnotateImages after 30 ms: a client created per call (the old GoogleOcrService) versus the shared
+ * {@link VisionBatcher}. The RPC count and bytes the stand-in received per request are printed at teardown.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(32)
+public class VisionBatcherBenchmark {
+
+    private static final long RPC_LATENCY_MS = 30;
+
+    @Param({"per-call", "batched"})
+    public String client;
+
+    private final AtomicInteger rpcs = new AtomicInteger();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private ExecutorService serverThreads;
+    private Server server;
+    private String endpoint;
+    private VisionBatcher batcher;
+
+    @Setup
+    public void setup() throws IOException {
+        serverThreads = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "vision-stub");
+            t.setDaemon(true);
+            return t;
+        });
+        server = ServerBuilder.forPort(0)
+                .addService(new ImageAnnotatorGrpc.ImageAnnotatorImplBase() {
+                    @Override
+                    public void batchAnnotateImages(BatchAnnotateImagesRequest request,
+                                                    StreamObserver<BatchAnnotateImagesResponse> observer) {
+                        rpcs.incrementAndGet();
+                        bytesReceived.addAndGet(request.getSerializedSize());
+                        try {
+                            Thread.sleep(RPC_LATENCY_MS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        BatchAnnotateImagesResponse.Builder out = BatchAnnotateImagesResponse.newBuilder();
+                        for (AnnotateImageRequest r : request.getRequestsList()) {
+                            out.addResponses(AnnotateImageResponse.newBuilder()
+                                    .setFullTextAnnotation(TextAnnotation.newBuilder()
+                                            .setText(r.getImage().getContent().toStringUtf8())));
+                        }
+                        observer.onNext(out.build());
+                        observer.onCompleted();
+                    }
+                })
+                .executor(serverThreads)
+                .maxInboundMessageSize(64 << 20)
+                .build()
+                .start();
+        endpoint = "localhost:" + server.getPort();
+        if (client.equals("batched")) {
+            batcher = new VisionBatcher(() -> VisionBatcher.createClient(endpoint, true),
+                    Duration.ofMillis(20), 16, 8L << 20, 4);
+            batcher.warmUp();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (batcher != null) batcher.close();
+        server.shutdownNow();
+        serverThreads.shutdownNow();
+        long n = Math.max(1, requests.get());
+        System.out.printf("%n%s: %.3f RPCs and %d bytes received per request%n",
+                client, (double) rpcs.get() / n, bytesReceived.get() / n);
+    }
+
+    @Benchmark
+    public AnnotateImageResponse ocr() throws Exception {
+        requests.incrementAndGet();
+        AnnotateImageRequest request = AnnotateImageRequest.newBuilder()
+                .setImage(Image.newBuilder().setContent(ByteString.copyFromUtf8("receipt")))
+                .addFeatures(Feature.newBuilder().setType(Feature.Type.TEXT_DETECTION))
+                .build();
+        if (batcher != null) return batcher.submit(request).get(batcher.callTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        try (ImageAnnotatorClient perCall = VisionBatcher.createClient(endpoint, true)) {
+            return perCall.batchAnnotateImages(List.of(request)).getResponses(0);
+        }
+    }
+}
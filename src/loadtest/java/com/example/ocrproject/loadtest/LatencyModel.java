@@ -0,0 +1,44 @@
+package com.example.ocrproject.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Log-normal latency with a given median and p99, plus an independent error probability.
+ * Configured from system properties {@code stub.<name>.median-ms}, {@code .p99-ms} and {@code .error-rate}.
+ */
+record LatencyModel(double medianMs, double p99Ms, double errorRate) {
+
+    private static final double Z99 = 2.326;
+
+    static LatencyModel fromProperties(String name, double medianMs, double p99Ms, double errorRate) {
+        return new LatencyModel(
+                Double.parseDouble(System.getProperty("stub." + name + ".median-ms", String.valueOf(medianMs))),
+                Double.parseDouble(System.getProperty("stub." + name + ".p99-ms", String.valueOf(p99Ms))),
+                Double.parseDouble(System.getProperty("stub." + name + ".error-rate", String.valueOf(errorRate))));
+    }
+
+    long sampleMs() {
+        if (medianMs <= 0) return 0;
+        double sigma = p99Ms > medianMs ? Math.log(p99Ms / medianMs) / Z99 : 0;
+        return Math.round(medianMs * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+    }
+
+    boolean fail() {
+        return errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate;
+    }
+
+    /** Sleeps for one sampled latency and reports whether this call should fail. */
+    boolean await() {
+        try {
+            Thread.sleep(sampleMs());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return fail();
+    }
+
+    @Override
+    public String toString() {
+        return "median " + medianMs + "ms, p99 " + p99Ms + "ms, errors " + (errorRate * 100) + "%";
+    }
+}
@@ -0,0 +1,274 @@
+package com.example.ocrproject.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load generator: {@code load.concurrency} workers upload receipt JPEGs as multipart/form-data to each
+ * path in {@code load.paths} for {@code load.duration} (after {@code load.warmup}), then print throughput, latency
+ * percentiles, error count and the peak thread count / heap of the service read from {@code /actuator/metrics}.
+ *
+ * {@code load.unique-ratio} is the share of uploads that are new images (OCR cache misses); the rest reuse a small
+ * pool, like retries and re-uploads of the same photo.
+ *
+ * {@code load.concurrency} may be a list of steps ({@code 100,400,1600}); each step is measured separately and a
+ * summary table follows. "in flight" is the service's own count of requests being handled
+ * ({@code http.server.requests.active}); connections still waiting for a servlet thread are not in it, so it
+ * flattens out at the thread pool size in platform-thread mode while virtual-thread mode keeps up with the
+ * workers until an upstream semaphore or the heap runs out.
+ *
+ * <pre>./gradlew loadTest -Dload.concurrency=32 -Dload.duration=PT2M -Dload.paths=/api/ocr/recommend</pre>
+ */
+public final class LoadGenerator {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    static final String BOUNDARY = "----ocrload" + Long.toHexString(System.nanoTime());
+
+    private final String target = System.getProperty("load.target", "http://localhost:8080");
+    private final List<String> paths = List.of(System.getProperty("load.paths", "/api/ocr,/api/ocr/recommend").split(","));
+    private final int[] steps = Arrays.stream(System.getProperty("load.concurrency", "16").split(","))
+            .mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+    private final Duration duration = Duration.parse(System.getProperty("load.duration", "PT60S"));
+    private final Duration warmup = Duration.parse(System.getProperty("load.warmup", "PT10S"));
+    private final double uniqueRatio = Double.parseDouble(System.getProperty("load.unique-ratio", "0.3"));
+
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final List<byte[]> images = new ArrayList<>();
+
+    private LoadGenerator() {}
+
+    public static void main(String[] args) throws Exception {
+        new LoadGenerator().run();
+    }
+
+    private void run() throws Exception {
+        for (int i = 0; i < 20; i++) images.add(receiptJpeg(i));
+        System.out.printf("target %s, %s workers, %s warmup + %s per step, %.0f%% unique images (%d KB avg)%n",
+                target, Arrays.toString(steps), warmup, duration, uniqueRatio * 100,
+                images.stream().mapToInt(b -> b.length).sum() / images.size() / 1024);
+        List<String> summary = new ArrayList<>();
+        for (String path : paths) {
+            for (int concurrency : steps) {
+                drive(path.trim(), concurrency, warmup, null);
+                Result result = new Result();
+                ServerSampler sampler = new ServerSampler();
+                sampler.start();
+                drive(path.trim(), concurrency, duration, result);
+                sampler.stop();
+                result.print(path.trim() + " x" + concurrency, duration, sampler);
+                summary.add(result.row(path.trim(), concurrency, duration, sampler));
+            }
+        }
+        if (summary.size() > 1) {
+            System.out.printf("%n%-22s %7s %9s %9s %9s %8s %8s %9s%n",
+                    "path", "workers", "req/s", "p99 ms", "errors", "inflight", "threads", "heap MB");
+            summary.forEach(System.out::println);
+        }
+    }
+
+    private void drive(String path, int concurrency, Duration length, Result result) throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        long endAt = System.nanoTime() + length.toNanos();
+        for (int w = 0; w < concurrency; w++) {
+            workers.submit(() -> {
+                long[] latencies = new long[1024];
+                int n = 0;
+                while (System.nanoTime() < endAt) {
+                    long start = System.nanoTime();
+                    boolean ok = upload(path);
+                    long elapsed = System.nanoTime() - start;
+                    if (result == null) continue;
+                    if (!ok) result.errors.incrementAndGet();
+                    if (n == latencies.length) latencies = Arrays.copyOf(latencies, n * 2);
+                    latencies[n++] = elapsed;
+                }
+                if (result != null) result.add(Arrays.copyOf(latencies, n));
+                return null;
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(length.toMillis() + 120_000, TimeUnit.MILLISECONDS);
+    }
+
+    private boolean upload(String path) {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        byte[] image = images.get(rnd.nextInt(images.size()));
+        if (rnd.nextDouble() < uniqueRatio) {
+            // Bytes after the JPEG EOI marker are ignored by decoders but change the content hash
+            image = Arrays.copyOf(image, image.length + 16);
+            for (int i = image.length - 16; i < image.length; i++) image[i] = (byte) rnd.nextInt();
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(target + path))
+                .timeout(Duration.ofSeconds(120))
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(multipart(image)))
+                .build();
+        try {
+            HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+            return response.statusCode() / 100 == 2;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    static byte[] multipart(byte[] image) {
+        byte[] head = ("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"file\"; filename=\"receipt.jpg\"\r\n"
+                + "Content-Type: image/jpeg\r\n\r\n").getBytes(StandardCharsets.UTF_8);
+        byte[] tail = ("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8);
+        byte[] body = new byte[head.length + image.length + tail.length];
+        System.arraycopy(head, 0, body, 0, head.length);
+        System.arraycopy(image, 0, body, head.length, image.length);
+        System.arraycopy(tail, 0, body, head.length + image.length, tail.length);
+        return body;
+    }
+
+    // Phone-photo sized receipt with printed lines and some sensor noise, so preprocessing does real work
+    static byte[] receiptJpeg(int seed) throws IOException {
+        Random rnd = new Random(seed);
+        BufferedImage img = new BufferedImage(1512, 2016, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        g.setColor(new Color(235, 232, 225));
+        g.fillRect(0, 0, img.getWidth(), img.getHeight());
+        g.setColor(new Color(40, 40, 40));
+        g.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 38));
+        for (int y = 120; y < img.getHeight() - 120; y += 58) {
+            g.drawString("ITEM " + (1000 + rnd.nextInt(9000)) + "      1     " + (500 + rnd.nextInt(20000)), 100, y);
+        }
+        g.dispose();
+        for (int i = 0; i < 200_000; i++) {
+            int x = rnd.nextInt(img.getWidth()), y = rnd.nextInt(img.getHeight());
+            int v = 200 + rnd.nextInt(56);
+            img.setRGB(x, y, (v << 16) | (v << 8) | v);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(img, "jpg", out);
+        return out.toByteArray();
+    }
+
+    private static final class Result {
+        final AtomicLong errors = new AtomicLong();
+        final List<long[]> parts = Collections.synchronizedList(new ArrayList<>());
+
+        void add(long[] latencies) {
+            parts.add(latencies);
+        }
+
+        void print(String path, Duration duration, ServerSampler server) {
+            long[] all = parts.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+            System.out.printf("%n== %s%n", path);
+            if (all.length == 0) {
+                System.out.println("no completed requests");
+                return;
+            }
+            System.out.printf("requests %d, errors %d (%.2f%%), throughput %.1f req/s%n",
+                    all.length, errors.get(), 100.0 * errors.get() / all.length, all.length / (duration.toMillis() / 1000.0));
+            System.out.printf("latency ms  p50 %.1f  p90 %.1f  p99 %.1f  max %.1f%n",
+                    pct(all, 0.50), pct(all, 0.90), pct(all, 0.99), all[all.length - 1] / 1e6);
+            System.out.println("server      " + server.summary());
+        }
+
+        String row(String path, int workers, Duration duration, ServerSampler server) {
+            long[] all = parts.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+            double seconds = duration.toMillis() / 1000.0;
+            return String.format("%-22s %7d %9.1f %9.1f %9d %8.1f %8.0f %9.0f", path, workers, all.length / seconds,
+                    all.length == 0 ? 0 : pct(all, 0.99), errors.get(), server.avgActive(),
+                    server.maxThreads(), server.maxHeapMb());
+        }
+
+        private static double pct(long[] sorted, double p) {
+            return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)] / 1e6;
+        }
+    }
+
+    /** Polls the service's actuator once a second for live threads, heap in use and requests being handled. */
+    private final class ServerSampler {
+        private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+        private double maxThreads, maxHeap, lastThreads, lastHeap, maxActive, sumActive;
+        private int activeSamples;
+        private boolean available = true;
+
+        void start() {
+            timer.scheduleAtFixedRate(this::sample, 0, 1, TimeUnit.SECONDS);
+        }
+
+        void stop() throws InterruptedException {
+            timer.shutdown();
+            timer.awaitTermination(5, TimeUnit.SECONDS);
+        }
+
+        private synchronized void sample() {
+            Double threads = metric("jvm.threads.live");
+            Double heap = metric("jvm.memory.used?tag=area:heap");
+            if (threads == null || heap == null) {
+                available = false;
+                return;
+            }
+            lastThreads = threads;
+            lastHeap = heap;
+            maxThreads = Math.max(maxThreads, threads);
+            maxHeap = Math.max(maxHeap, heap);
+            Double active = metric("http.server.requests.active");
+            if (active != null) {
+                maxActive = Math.max(maxActive, active);
+                sumActive += active;
+                activeSamples++;
+            }
+        }
+
+        synchronized double avgActive() {
+            return activeSamples == 0 ? 0 : sumActive / activeSamples;
+        }
+
+        synchronized double maxThreads() {
+            return maxThreads;
+        }
+
+        synchronized double maxHeapMb() {
+            return maxHeap / (1 << 20);
+        }
+
+        synchronized String summary() {
+            if (!available && maxThreads == 0) return "actuator metrics unavailable";
+            return String.format("threads peak %.0f (end %.0f), heap peak %.0f MB (end %.0f MB), in flight avg %.0f peak %.0f",
+                    maxThreads, lastThreads, maxHeap / (1 << 20), lastHeap / (1 << 20), avgActive(), maxActive);
+        }
+
+        private Double metric(String name) {
+            try {
+                HttpResponse<String> res = http.send(HttpRequest.newBuilder(URI.create(target + "/actuator/metrics/" + name))
+                        .timeout(Duration.ofSeconds(2)).build(), HttpResponse.BodyHandlers.ofString());
+                if (res.statusCode() != 200) return null;
+                for (JsonNode m : MAPPER.readTree(res.body()).path("measurements")) {
+                    // gauges report VALUE, long task timers ACTIVE_TASKS
+                    String stat = m.path("statistic").asText();
+                    if (stat.equals("VALUE") || stat.equals("ACTIVE_TASKS")) return m.path("value").asDouble();
+                }
+                return null;
+            } catch (IOException e) {
+                return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.ocrproject.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold-start benchmark: launches the service jar {@code startup.runs} times and, measured from process launch,
+ * reports when it first answered HTTP at all, when {@code /actuator/health/readiness} turned 200 (upstream clients
+ * warm), and when the first request to {@code startup.path} succeeded. Requests start only after readiness, the
+ * way a load balancer would send them. Each run's output goes to build/startup-benchmark/run-N.log.
+ *
+ * The jar is started from its own directory so a CDS archive recorded there by {@code cdsArchive} matches. Start
+ * {@code ./gradlew stubUpstreams} first; the default app arguments use the stub profile.
+ *
+ * <pre>./gradlew bootJar startupBenchmark -Dstartup.runs=10</pre>
+ */
+public final class StartupBenchmark {
+
+    private final Path jar = Path.of(System.getProperty("startup.jar", "build/libs/ocrproject-0.0.1-SNAPSHOT.jar")).toAbsolutePath();
+    private final List<String> jvmArgs = split(System.getProperty("startup.jvm-args", ""));
+    private final List<String> appArgs = split(System.getProperty("startup.app-args", "--spring.profiles.active=stub"));
+    private final int runs = Integer.getInteger("startup.runs", 5);
+    private final int port = Integer.getInteger("startup.port", 18080);
+    private final String path = System.getProperty("startup.path", "/api/ocr/recommend");
+    private final Duration limit = Duration.parse(System.getProperty("startup.timeout", "PT2M"));
+
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(500)).build();
+    private byte[] receipt;
+
+    private StartupBenchmark() {}
+
+    public static void main(String[] args) throws Exception {
+        new StartupBenchmark().run();
+    }
+
+    private void run() throws Exception {
+        if (!Files.isRegularFile(jar)) throw new IllegalStateException("jar not found: " + jar + " (run bootJar or cdsArchive)");
+        receipt = LoadGenerator.multipart(LoadGenerator.receiptJpeg(0));
+        Path logs = Files.createDirectories(Path.of("build", "startup-benchmark"));
+        System.out.printf("%s, jvm args %s, %d runs, first request POST %s%n", jar.getFileName(), jvmArgs, runs, path);
+        System.out.printf("%n%4s %10s %10s %14s%n", "run", "http ms", "ready ms", "first req ms");
+
+        long[] ready = new long[runs], first = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long[] r = launch(logs.resolve("run-" + (i + 1) + ".log").toFile());
+            ready[i] = r[1];
+            first[i] = r[2];
+            System.out.printf("%4d %10s %10s %14s%n", i + 1, ms(r[0]), ms(r[1]), ms(r[2]));
+        }
+        System.out.printf("%nmedian  time-to-ready %s ms, time-to-first-recommendation %s ms%n", ms(median(ready)), ms(median(first)));
+    }
+
+    // {first HTTP answer, readiness 200, first 2xx on path} in ms since launch, -1 where it never happened
+    private long[] launch(File log) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.addAll(jvmArgs);
+        command.add("-jar");
+        command.add(jar.getFileName().toString());
+        command.add("--server.port=" + port);
+        command.addAll(appArgs);
+
+        long[] out = {-1, -1, -1};
+        long start = System.nanoTime();
+        long deadline = start + limit.toNanos();
+        Process process = new ProcessBuilder(command).directory(jar.getParent().toFile())
+                .redirectErrorStream(true).redirectOutput(log).start();
+        try {
+            while (System.nanoTime() < deadline && process.isAlive()) {
+                int status = status(HttpRequest.newBuilder(uri("/actuator/health/readiness")).GET());
+                if (status > 0 && out[0] < 0) out[0] = since(start);
+                if (status == 200) {
+                    out[1] = since(start);
+                    break;
+                }
+                Thread.sleep(10);
+            }
+            while (out[1] >= 0 && System.nanoTime() < deadline && process.isAlive()) {
+                int status = status(HttpRequest.newBuilder(uri(path))
+                        .header("Content-Type", "multipart/form-data; boundary=" + LoadGenerator.BOUNDARY)
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(receipt)));
+                if (status / 100 == 2) {
+                    out[2] = since(start);
+                    break;
+                }
+                Thread.sleep(50);
+            }
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) process.destroyForcibly().waitFor();
+        }
+        return out;
+    }
+
+    private int status(HttpRequest.Builder request) throws InterruptedException {
+        try {
+            return http.send(request.timeout(Duration.ofSeconds(30)).build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            return -1; // not listening yet
+        }
+    }
+
+    private URI uri(String p) {
+        return URI.create("http://localhost:" + port + p);
+    }
+
+    private static long since(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static String ms(long value) {
+        return value < 0 ? "-" : Long.toString(value);
+    }
+
+    private static List<String> split(String s) {
+        return s.isBlank() ? List.of() : List.of(s.trim().split("\\s+"));
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.ocrproject.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.cloud.vision.v1.*;
+import com.google.protobuf.ByteString;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local stand-ins for Google Vision (gRPC), Gemini (generateContent / streamGenerateContent) and TheMealDB, on the
+ * ports application-stub.yml points at. Answers are deterministic per input, so the service's caches behave as
+ * they would with repeated real receipts; latency and errors follow a {@link LatencyModel} per upstream.
+ *
+ * <pre>./gradlew stubUpstreams -Dstub.gemini.median-ms=900 -Dstub.gemini.p99-ms=4000 -Dstub.gemini.error-rate=0.02</pre>
+ */
+public final class StubUpstreams {
+
+    static final int VISION_PORT = Integer.getInteger("stub.vision.port", 19001);
+    static final int GEMINI_PORT = Integer.getInteger("stub.gemini.port", 19002);
+    static final int MEALDB_PORT = Integer.getInteger("stub.mealdb.port", 19003);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Pattern BATCH_MARKER = Pattern.compile("@@[0-9a-f]+#\\d+@@");
+    private static final Pattern NUMBERED_LINE = Pattern.compile("(?m)^(\\d+): .*$");
+
+    private static final List<String> KNOWN_ITEMS = List.of(
+            "국산양파1.5kg", "서울우유 1L", "게란 30구", "대파 1단", "두부 300g", "삼겹살 600g", "깐마늘 200g",
+            "신라면 5입", "스팸 200g", "방울토마토 500g", "당근 1kg", "애호박1입", "콩나물 300g", "모짜렐라 200g");
+    private static final List<String> BRAND_ITEMS = List.of(
+            "CJ 비비고 왕교자 1.05kg", "풀무원 생가득 새송이", "오뚜기 진짬뽕 4입", "하림 닭가슴살 슬라이스");
+    private static final List<String> GEMINI_ITEMS = List.of(
+            "양파", "우유", "계란", "대파", "두부", "돼지고기", "마늘", "라면", "햄", "토마토", "당근", "만두", "새송이버섯");
+    private static final List<String> MEAL_INGREDIENTS = List.of(
+            "Beef", "Soy Sauce", "Sugar", "Sesame Oil", "Garlic", "Green Onions", "Onion", "Carrots", "Rice", "Eggs");
+
+    private StubUpstreams() {}
+
+    public static void main(String[] args) throws Exception {
+        LatencyModel vision = LatencyModel.fromProperties("vision", 150, 600, 0.0);
+        LatencyModel gemini = LatencyModel.fromProperties("gemini", 1200, 5000, 0.01);
+        LatencyModel mealdb = LatencyModel.fromProperties("mealdb", 120, 800, 0.01);
+
+        Server visionServer = startVision(vision);
+        HttpServer geminiServer = startHttp(GEMINI_PORT);
+        geminiServer.createContext("/", ex -> handleGemini(ex, gemini));
+        HttpServer mealServer = startHttp(MEALDB_PORT);
+        mealServer.createContext("/", ex -> handleMealDb(ex, mealdb));
+
+        System.out.println("Vision    grpc localhost:" + VISION_PORT + "  (" + vision + ")");
+        System.out.println("Gemini    http://localhost:" + GEMINI_PORT + "  (" + gemini + ")");
+        System.out.println("TheMealDB http://localhost:" + MEALDB_PORT + "  (" + mealdb + ")");
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            visionServer.shutdownNow();
+            geminiServer.stop(0);
+            mealServer.stop(0);
+        }));
+        visionServer.awaitTermination();
+    }
+
+    private static Server startVision(LatencyModel latency) throws IOException {
+        return ServerBuilder.forPort(VISION_PORT)
+                .addService(new ImageAnnotatorGrpc.ImageAnnotatorImplBase() {
+                    @Override
+                    public void batchAnnotateImages(BatchAnnotateImagesRequest request,
+                                                    StreamObserver<BatchAnnotateImagesResponse> observer) {
+                        if (latency.await()) {
+                            observer.onError(Status.UNAVAILABLE.withDescription("stub error").asRuntimeException());
+                            return;
+                        }
+                        BatchAnnotateImagesResponse.Builder out = BatchAnnotateImagesResponse.newBuilder();
+                        for (AnnotateImageRequest r : request.getRequestsList()) {
+                            out.addResponses(AnnotateImageResponse.newBuilder()
+                                    .setFullTextAnnotation(TextAnnotation.newBuilder().setText(receipt(r.getImage().getContent()))));
+                        }
+                        observer.onNext(out.build());
+                        observer.onCompleted();
+                    }
+                })
+                .executor(Executors.newCachedThreadPool())
+                .maxInboundMessageSize(64 << 20)
+                .build()
+                .start();
+    }
+
+    private static HttpServer startHttp(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", port), 256);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        return server;
+    }
+
+    // Same image -> same receipt; a mix of lexicon-resolvable lines, brand lines and header/total noise
+    static String receipt(ByteString image) {
+        Random rnd = new Random(image.hashCode());
+        StringBuilder sb = new StringBuilder("이마트 성수점\n2024-05-17 18:32  POS 03\n");
+        int items = 6 + rnd.nextInt(12);
+        int total = 0;
+        for (int i = 0; i < items; i++) {
+            List<String> pool = rnd.nextInt(4) == 0 ? BRAND_ITEMS : KNOWN_ITEMS;
+            int price = (5 + rnd.nextInt(200)) * 100;
+            total += price;
+            sb.append(pool.get(rnd.nextInt(pool.size()))).append("    1    ").append(String.format("%,d", price)).append('\n');
+        }
+        return sb.append("합계    ").append(String.format("%,d", total)).append("\n카드결제    ").append(String.format("%,d", total)).toString();
+    }
+
+    private static void handleGemini(HttpExchange ex, LatencyModel latency) throws IOException {
+        String prompt = MAPPER.readTree(ex.getRequestBody()).path("contents").path(0).path("parts").path(0).path("text").asText("");
+        if (latency.await()) {
+            respond(ex, 503, "application/json", "{\"error\":{\"code\":503,\"status\":\"UNAVAILABLE\"}}");
+            return;
+        }
+        String answer = answer(prompt);
+        if (!ex.getRequestURI().getPath().endsWith(":streamGenerateContent")) {
+            respond(ex, 200, "application/json", chunk(answer, true).toString());
+            return;
+        }
+        // Three SSE chunks; usageMetadata and finishReason on the last one, like the real API
+        ex.getResponseHeaders().set("Content-Type", "text/event-stream");
+        ex.sendResponseHeaders(200, 0);
+        try (OutputStream out = ex.getResponseBody()) {
+            int step = Math.max(1, answer.length() / 3);
+            for (int from = 0; from < answer.length(); from += step) {
+                boolean last = from + step >= answer.length();
+                String part = answer.substring(from, last ? answer.length() : from + step);
+                out.write(("data: " + chunk(part, last) + "\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                if (last) break;
+            }
+        }
+    }
+
+    private static String answer(String prompt) {
+        Matcher markers = BATCH_MARKER.matcher(prompt);
+        if (markers.find()) { // batched translation: echo every marker with a placeholder translation
+            StringBuilder sb = new StringBuilder();
+            int n = 0;
+            do {
+                sb.append(markers.group()).append("\n번역문 ").append(++n).append("\n\n");
+            } while (markers.find());
+            return sb.toString();
+        }
+        if (prompt.contains("영어 텍스트를 자연스러운 한국어로")) return "번역된 조리법 텍스트입니다.";
+        if (prompt.contains("'번호: 재료명'")) { // line-level extraction
+            Matcher lines = NUMBERED_LINE.matcher(prompt);
+            StringBuilder sb = new StringBuilder();
+            for (int k = 0; lines.find(); k++) {
+                sb.append(lines.group(1)).append(": ").append(GEMINI_ITEMS.get(k % GEMINI_ITEMS.size())).append('\n');
+            }
+            return sb.toString();
+        }
+        Random rnd = new Random(prompt.hashCode());
+        StringJoiner items = new StringJoiner(", ");
+        for (int i = 0, n = 2 + rnd.nextInt(6); i < n; i++) items.add(GEMINI_ITEMS.get(rnd.nextInt(GEMINI_ITEMS.size())));
+        return items.toString();
+    }
+
+    private static ObjectNode chunk(String text, boolean last) {
+        ObjectNode root = MAPPER.createObjectNode();
+        ObjectNode candidate = root.putArray("candidates").addObject();
+        candidate.putObject("content").put("role", "model").putArray("parts").addObject().put("text", text);
+        if (last) {
+            candidate.put("finishReason", "STOP");
+            root.putObject("usageMetadata").put("promptTokenCount", 800).put("candidatesTokenCount", text.length() / 2);
+        }
+        return root;
+    }
+
+    private static void handleMealDb(HttpExchange ex, LatencyModel latency) throws IOException {
+        String path = ex.getRequestURI().getPath();
+        String query = Optional.ofNullable(ex.getRequestURI().getQuery()).orElse("");
+        String arg = query.startsWith("i=") ? query.substring(2) : "";
+        if (latency.await()) {
+            respond(ex, 503, "text/plain", "stub error");
+            return;
+        }
+        if (path.endsWith("/filter.php")) {
+            Random rnd = new Random(arg.hashCode());
+            StringJoiner meals = new StringJoiner(",", "{\"meals\":[", "]}");
+            for (int i = 0, n = 4 + rnd.nextInt(12); i < n; i++) {
+                int id = 52700 + rnd.nextInt(300);
+                meals.add("{\"strMeal\":\"Meal " + id + "\",\"idMeal\":\"" + id + "\"}");
+            }
+            respond(ex, 200, "application/json", meals.toString());
+        } else if (path.endsWith("/lookup.php")) {
+            respond(ex, 200, "application/json", meal(arg));
+        } else {
+            respond(ex, 404, "text/plain", "not found");
+        }
+    }
+
+    private static String meal(String id) {
+        ObjectNode meal = MAPPER.createObjectNode();
+        meal.put("idMeal", id).put("strMeal", "Korean Beef Bowl " + id)
+                .put("strInstructions", "Slice the beef thinly. Mix soy sauce, sugar, sesame oil and garlic. ".repeat(6));
+        Random rnd = new Random(id.hashCode());
+        for (int i = 1; i <= 20; i++) {
+            boolean used = i <= 5 + rnd.nextInt(6);
+            meal.put("strIngredient" + i, used ? MEAL_INGREDIENTS.get(rnd.nextInt(MEAL_INGREDIENTS.size())) : "");
+            meal.put("strMeasure" + i, used ? (1 + rnd.nextInt(4)) + " tbs" : "");
+        }
+        ObjectNode root = MAPPER.createObjectNode();
+        root.putArray("meals").add(meal);
+        return root.toString();
+    }
+
+    private static void respond(HttpExchange ex, int status, String type, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", type + "; charset=utf-8");
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
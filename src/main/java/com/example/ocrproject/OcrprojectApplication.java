@@ -2,8 +2,10 @@ package com.example.ocrproject;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class OcrprojectApplication {
 	public static void main(String[] args) {
 		SpringApplication.run(OcrprojectApplication.class, args);
@@ -0,0 +1,76 @@
+package com.example.ocrproject.controller;
+
+import com.example.ocrproject.dto.RecipeSuggestion;
+import com.example.ocrproject.service.FridgeService;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.*;
+
+/**
+ * The logged-in user's fridge. Every response carries the current {@code items} and the {@code recipes}
+ * recommended for them, which are served from {@link FridgeService}'s materialized view.
+ */
+@RestController
+@RequestMapping("/api/fridge")
+public class FridgeController {
+
+    private static final int TOP_K = 5;
+
+    private final FridgeService fridge;
+
+    public FridgeController(FridgeService fridge) {
+        this.fridge = fridge;
+    }
+
+    @GetMapping
+    public Map<String, Object> fridge(HttpSession session) {
+        return body(userId(session));
+    }
+
+    @GetMapping("/recommend")
+    public List<RecipeSuggestion> recommend(HttpSession session) {
+        return fridge.recommend(userId(session), TOP_K);
+    }
+
+    // Body: [{"name": "계란", "quantity": 10, "expiresAt": "2026-11-01"}, ...]; quantity and expiresAt are optional
+    @PostMapping("/items")
+    public Map<String, Object> add(@RequestBody List<FridgeService.Addition> additions, HttpSession session) {
+        long userId = userId(session);
+        fridge.add(userId, additions);
+        return body(userId);
+    }
+
+    @PostMapping("/items/{id}/consume")
+    public ResponseEntity<Map<String, Object>> consume(@PathVariable long id, @RequestParam(defaultValue = "1") int quantity,
+                                                       HttpSession session) {
+        long userId = userId(session);
+        if (!fridge.consume(userId, id, quantity)) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(body(userId));
+    }
+
+    @DeleteMapping("/items/{id}")
+    public ResponseEntity<Map<String, Object>> remove(@PathVariable long id, HttpSession session) {
+        long userId = userId(session);
+        if (!fridge.remove(userId, id)) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(body(userId));
+    }
+
+    private Map<String, Object> body(long userId) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("items", fridge.items(userId));
+        body.put("recipes", fridge.recommend(userId, TOP_K));
+        return body;
+    }
+
+    // Set by AuthController on login
+    private static long userId(HttpSession session) {
+        if (!(session.getAttribute("user") instanceof Long id)) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "로그인이 필요합니다");
+        }
+        return id;
+    }
+}
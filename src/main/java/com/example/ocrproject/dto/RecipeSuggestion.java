@@ -0,0 +1,10 @@
+package com.example.ocrproject.dto;
+
+import java.util.List;
+
+/**
+ * One recommended recipe as returned to the frontend.
+ * Field names match the JSON keys recipe.html reads (name, need, desc, matchCount).
+ */
+public record RecipeSuggestion(String name, List<String> need, String desc, int matchCount) {
+}
@@ -0,0 +1,63 @@
+package com.example.ocrproject.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+
+/**
+ * One ingredient in a user's fridge. A user has at most one row per ingredient; adding it again raises
+ * {@code quantity}, consuming lowers it and the row is deleted at zero.
+ */
+@Entity
+@Table(name = "fridge_item",
+        indexes = @Index(name = "idx_fridge_item_user", columnList = "user_id"),
+        uniqueConstraints = @UniqueConstraint(name = "uk_fridge_item_user_ingredient", columnNames = {"user_id", "ingredient"}))
+public class FridgeItem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id")
+    private User user;
+
+    @Column(nullable = false)
+    private String ingredient;
+
+    private int quantity;
+
+    private LocalDate addedAt;
+
+    // Null when unknown
+    private LocalDate expiresAt;
+
+    public FridgeItem() {}
+
+    public FridgeItem(User user, String ingredient, int quantity, LocalDate addedAt, LocalDate expiresAt) {
+        this.user = user;
+        this.ingredient = ingredient;
+        this.quantity = quantity;
+        this.addedAt = addedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    // Getter & Setter
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public User getUser() { return user; }
+    public void setUser(User user) { this.user = user; }
+
+    public String getIngredient() { return ingredient; }
+    public void setIngredient(String ingredient) { this.ingredient = ingredient; }
+
+    public int getQuantity() { return quantity; }
+    public void setQuantity(int quantity) { this.quantity = quantity; }
+
+    public LocalDate getAddedAt() { return addedAt; }
+    public void setAddedAt(LocalDate addedAt) { this.addedAt = addedAt; }
+
+    public LocalDate getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDate expiresAt) { this.expiresAt = expiresAt; }
+}
@@ -0,0 +1,62 @@
+package com.example.ocrproject.entity;
+
+import jakarta.persistence.*;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * One TheMealDB recipe imported from a local dump, with its Korean display fields precomputed.
+ * {@code ingredients} holds the normalized ingredient names and backs the ingredient -> meal postings.
+ */
+@Entity
+@Table(name = "meal")
+public class Meal {
+
+    @Id
+    private String id;
+
+    private String name;
+
+    private String nameKo;
+
+    @Lob
+    private String instructions;
+
+    // Translated "ingredient measure" entries, one per line
+    @Lob
+    private String needKo;
+
+    // Digest of the source JSON and the translation dictionary, used to skip unchanged meals on refresh
+    private String sourceHash;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "meal_ingredient", joinColumns = @JoinColumn(name = "meal_id"),
+            indexes = @Index(name = "idx_meal_ingredient", columnList = "ingredient"))
+    @Column(name = "ingredient")
+    private Set<String> ingredients = new HashSet<>();
+
+    public Meal() {}
+
+    // Getter & Setter
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getNameKo() { return nameKo; }
+    public void setNameKo(String nameKo) { this.nameKo = nameKo; }
+
+    public String getInstructions() { return instructions; }
+    public void setInstructions(String instructions) { this.instructions = instructions; }
+
+    public String getNeedKo() { return needKo; }
+    public void setNeedKo(String needKo) { this.needKo = needKo; }
+
+    public String getSourceHash() { return sourceHash; }
+    public void setSourceHash(String sourceHash) { this.sourceHash = sourceHash; }
+
+    public Set<String> getIngredients() { return ingredients; }
+    public void setIngredients(Set<String> ingredients) { this.ingredients = ingredients; }
+}
@@ -0,0 +1,39 @@
+package com.example.ocrproject.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Translation memory entry: Korean translation of an English source text, keyed by the SHA-256 of the source.
+ */
+@Entity
+@Table(name = "translation")
+public class Translation {
+
+    @Id
+    @Column(length = 64)
+    private String id;
+
+    @Lob
+    private String source;
+
+    @Lob
+    private String korean;
+
+    public Translation() {}
+
+    public Translation(String id, String source, String korean) {
+        this.id = id;
+        this.source = source;
+        this.korean = korean;
+    }
+
+    // Getter & Setter
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getSource() { return source; }
+    public void setSource(String source) { this.source = source; }
+
+    public String getKorean() { return korean; }
+    public void setKorean(String korean) { this.korean = korean; }
+}
@@ -0,0 +1,15 @@
+package com.example.ocrproject.repository;
+
+import com.example.ocrproject.entity.FridgeItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface FridgeItemRepository extends JpaRepository<FridgeItem, Long> {
+    List<FridgeItem> findByUserIdOrderByAddedAtAscIdAsc(Long userId);
+
+    Optional<FridgeItem> findByUserIdAndIngredientIgnoreCase(Long userId, String ingredient);
+
+    Optional<FridgeItem> findByIdAndUserId(Long id, Long userId);
+}
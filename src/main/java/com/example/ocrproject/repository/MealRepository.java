@@ -0,0 +1,7 @@
+package com.example.ocrproject.repository;
+
+import com.example.ocrproject.entity.Meal;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface MealRepository extends JpaRepository<Meal, String> {
+}
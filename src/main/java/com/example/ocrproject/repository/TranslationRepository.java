@@ -0,0 +1,7 @@
+package com.example.ocrproject.repository;
+
+import com.example.ocrproject.entity.Translation;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface TranslationRepository extends JpaRepository<Translation, String> {
+}
@@ -0,0 +1,97 @@
+package com.example.ocrproject.service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AIMD concurrency limit. {@link #tryAcquire} never waits: it hands out a {@link Permit} while fewer than
+ * {@code limit} calls are in flight and returns null otherwise, so callers can shed load instead of queueing.
+ *
+ * Every completed call adjusts the limit. A call that failed or took longer than {@code latencyTarget} cuts it
+ * by {@value #BACKOFF} (never below {@code min}). A fast success while at least half the limit is in use raises
+ * it by {@code 1/limit}, i.e. by about one per limit's worth of calls (never above {@code max}). When an upstream
+ * browns out, its limit shrinks within a few calls and the excess fails fast instead of tying up threads.
+ */
+public class AdaptiveLimiter {
+
+    private static final double BACKOFF = 0.9;
+
+    /** One admitted call. Release exactly once; later calls are ignored. */
+    public final class Permit {
+        private final long start = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        public void success() {
+            release(true);
+        }
+
+        public void failure() {
+            release(false);
+        }
+
+        /** Gives the slot back without a latency sample, for calls that were never made. */
+        public void cancel() {
+            if (released.compareAndSet(false, true)) inFlight.decrementAndGet();
+        }
+
+        private void release(boolean ok) {
+            if (released.compareAndSet(false, true)) onRelease(System.nanoTime() - start, ok);
+        }
+    }
+
+    private final int min;
+    private final int max;
+    private final long latencyTargetNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong decreases = new AtomicLong();
+    private double limit;
+
+    public AdaptiveLimiter(int min, int max, Duration latencyTarget) {
+        this.max = Math.max(1, max);
+        this.min = Math.max(1, Math.min(min, this.max));
+        this.latencyTargetNanos = latencyTarget.toNanos();
+        this.limit = this.max;
+    }
+
+    public Permit tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit()) {
+                rejected.incrementAndGet();
+                return null;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) return new Permit();
+        }
+    }
+
+    public synchronized int limit() {
+        return (int) limit;
+    }
+
+    private void onRelease(long latencyNanos, boolean ok) {
+        int used = inFlight.getAndDecrement();
+        synchronized (this) {
+            if (!ok || latencyNanos > latencyTargetNanos) {
+                limit = Math.max(min, limit * BACKOFF);
+                decreases.incrementAndGet();
+            } else if (used * 2 >= limit) {
+                limit = Math.min(max, limit + 1 / limit);
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("limit", limit());
+        out.put("inFlight", inFlight.get());
+        out.put("rejected", rejected.get());
+        out.put("decreases", decreases.get());
+        return out;
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.ocrproject.service;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking concurrency cap for async upstream calls, backed by a {@link Semaphore}. {@link #submit} runs the
+ * task right away when a permit is free, otherwise queues it; each task must call {@link #release} exactly once
+ * when its call finishes, which starts the next queued task. No thread ever waits for a permit, so the cap holds
+ * the same way whether callers are pooled platform threads or one virtual thread per request.
+ *
+ * At most {@code maxQueued} tasks wait; beyond that {@link #submit} sheds with the {@link OverloadedException}
+ * from {@code overloaded}. Queued tasks are run by a single draining thread at a time, so a task that releases
+ * its permit synchronously does not recurse into the next one.
+ */
+class AsyncLimiter {
+
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final Supplier<OverloadedException> overloaded;
+    private final Semaphore permits;
+    private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    // drain() calls not yet handled by the draining thread; non-zero while one is draining
+    private final AtomicInteger drainRequests = new AtomicInteger();
+
+    AsyncLimiter(int maxConcurrent, int maxQueued, Supplier<OverloadedException> overloaded) {
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.maxQueued = Math.max(0, maxQueued);
+        this.overloaded = overloaded;
+        this.permits = new Semaphore(this.maxConcurrent);
+    }
+
+    /** @throws OverloadedException when {@code maxQueued} tasks are already waiting */
+    void submit(Runnable task) {
+        // tasks about to take a free permit do not count as waiting
+        if (queued.incrementAndGet() > maxQueued + permits.availablePermits()) {
+            queued.decrementAndGet();
+            throw overloaded.get();
+        }
+        waiting.add(task);
+        drain();
+    }
+
+    void release() {
+        permits.release();
+        drain();
+    }
+
+    /**
+     * Runs {@code call} under a permit; the permit is returned when its future completes. Cancelling the returned
+     * future cancels the call's future, or skips the call if it is still queued. Fails with
+     * {@link OverloadedException} when the queue is full.
+     */
+    <T> CompletableFuture<T> call(Supplier<CompletableFuture<T>> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            submit(() -> {
+                if (result.isDone()) {
+                    release();
+                    return;
+                }
+                CompletableFuture<T> f;
+                try {
+                    f = call.get();
+                } catch (RuntimeException e) {
+                    f = CompletableFuture.failedFuture(e);
+                }
+                f.whenComplete((v, e) -> {
+                    release();
+                    if (e != null) result.completeExceptionally(e);
+                    else result.complete(v);
+                });
+                CompletableFuture<T> upstream = f;
+                result.whenComplete((v, e) -> {
+                    if (result.isCancelled()) upstream.cancel(true);
+                });
+            });
+        } catch (OverloadedException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    int inFlight() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    int queued() {
+        return Math.max(0, queued.get());
+    }
+
+    // A task is only taken after its permit is held; re-check so a release racing with an add is not lost.
+    // Whoever finds the counter at zero drains for everyone, until no further drain() call arrived meanwhile
+    private void drain() {
+        if (drainRequests.getAndIncrement() != 0) return;
+        int missed = 1;
+        do {
+            while (!waiting.isEmpty() && permits.tryAcquire()) {
+                Runnable next = waiting.poll();
+                if (next == null) {
+                    permits.release();
+                    continue;
+                }
+                queued.decrementAndGet();
+                next.run();
+            }
+            missed = drainRequests.addAndGet(-missed);
+        } while (missed != 0);
+    }
+}
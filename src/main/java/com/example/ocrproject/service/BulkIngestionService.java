@@ -0,0 +1,280 @@
+package com.example.ocrproject.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Many receipts in one request: multipart {@code files} parts or a zip archive read entry by entry from the
+ * request body. At most {@code ocr.bulk.parallelism} receipts are in flight; the next part or zip entry is only
+ * read once one finishes, so memory stays bounded however large the archive is. The in-flight receipts reach
+ * {@link VisionBatcher} together and go out as shared batchAnnotateImages calls, and their Gemini extractions
+ * run concurrently under Gemini's own limits.
+ *
+ * Ingredients are merged across receipts in upload order, case-insensitively, keeping the first spelling
+ * (same rule as {@link IngredientExtractor#dedupLowerPreserve}).
+ */
+@Service
+public class BulkIngestionService {
+
+    private static final Set<String> IMAGE_EXTENSIONS = Set.of("jpg", "jpeg", "png", "webp", "gif", "bmp", "tif", "tiff");
+
+    /** One receipt image; {@code rejected} is set (and {@code file} null) when it was refused before OCR. */
+    public record Receipt(String name, MultipartFile file, String rejected) {}
+
+    /** Outcome of one receipt, reported in completion order. */
+    public record ReceiptResult(int index, String name, List<String> ingredients, String error) {}
+
+    /** Combined outcome of a bulk request. */
+    public record Summary(List<String> ingredients, int receipts, int failed, boolean truncated,
+                          Map<String, Integer> lines) {}
+
+    private final GoogleOcrService ocrService;
+    private final IngredientExtractor extractor;
+    private final int parallelism;
+    private final int maxFiles;
+    private final long maxEntryBytes;
+    // Unbounded thread-per-task executor; the per-request semaphore is what bounds the work
+    private final ExecutorService executor;
+
+    public BulkIngestionService(GoogleOcrService ocrService, IngredientExtractor extractor,
+                                @Value("${ocr.bulk.parallelism:8}") int parallelism,
+                                @Value("${ocr.bulk.max-files:100}") int maxFiles,
+                                @Value("${ocr.bulk.max-entry-size:5MB}") DataSize maxEntrySize,
+                                @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.ocrService = ocrService;
+        this.extractor = extractor;
+        this.parallelism = Math.max(1, parallelism);
+        this.maxFiles = Math.max(1, maxFiles);
+        this.maxEntryBytes = maxEntrySize.toBytes();
+        this.executor = VirtualThreads.perTask("bulk-ocr", virtualThreads);
+    }
+
+    public static Iterator<Receipt> receipts(List<MultipartFile> files) {
+        return files.stream()
+                .filter(f -> !f.isEmpty())
+                .map(f -> new Receipt(f.getOriginalFilename(), f, null))
+                .iterator();
+    }
+
+    /**
+     * Image entries of a zip stream, read lazily: each {@code next()} reads one entry. Directories, macOS
+     * resource forks and non-image files are skipped; entries over {@code ocr.bulk.max-entry-size} are
+     * returned as rejected without being buffered.
+     */
+    public Iterator<Receipt> zipEntries(InputStream body) {
+        ZipInputStream zip = new ZipInputStream(new BufferedInputStream(body, 64 * 1024));
+        return new Iterator<>() {
+            private Receipt next;
+            private boolean done;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null && !done) next = read();
+                return next != null;
+            }
+
+            @Override
+            public Receipt next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                Receipt r = next;
+                next = null;
+                return r;
+            }
+
+            private Receipt read() {
+                try {
+                    ZipEntry entry;
+                    while ((entry = zip.getNextEntry()) != null) {
+                        String name = entry.getName();
+                        if (entry.isDirectory() || !isImageName(name)) continue;
+                        byte[] bytes = zip.readNBytes((int) Math.min(Integer.MAX_VALUE - 8, maxEntryBytes + 1));
+                        if (bytes.length > maxEntryBytes) {
+                            return new Receipt(name, null, "파일 크기 초과 (" + DataSize.ofBytes(maxEntryBytes) + ")");
+                        }
+                        return new Receipt(name, new InMemoryFile(name, bytes), null);
+                    }
+                    done = true;
+                    zip.close();
+                    return null;
+                } catch (IOException e) {
+                    done = true;
+                    throw new UncheckedIOException("zip 읽기 실패: " + e.getMessage(), e);
+                }
+            }
+        };
+    }
+
+    static boolean isImageName(String name) {
+        String base = name.substring(name.lastIndexOf('/') + 1);
+        if (base.startsWith(".") || name.startsWith("__MACOSX/")) return false;
+        int dot = base.lastIndexOf('.');
+        return dot > 0 && IMAGE_EXTENSIONS.contains(base.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Runs OCR and extraction for every receipt and completes with the merged result. {@code onReceipt} is
+     * called from worker threads as each receipt finishes. Receipts beyond {@code ocr.bulk.max-files} are not
+     * read ({@link Summary#truncated}). Cancelling the returned future stops reading receipts, skips OCR that has
+     * not started and cancels the Gemini extractions in flight.
+     */
+    public CompletableFuture<Summary> ingestAsync(Iterator<Receipt> receipts, Consumer<ReceiptResult> onReceipt) {
+        CompletableFuture<Summary> result = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                result.complete(ingest(receipts, onReceipt, result));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    private Summary ingest(Iterator<Receipt> receipts, Consumer<ReceiptResult> onReceipt, CompletableFuture<Summary> request) {
+        Semaphore slots = new Semaphore(parallelism);
+        // a cancelled request wakes the loop below, which is waiting for a slot
+        request.whenComplete((v, e) -> {
+            if (request.isCancelled()) slots.release(parallelism);
+        });
+        List<CompletableFuture<ReceiptResult>> results = new ArrayList<>();
+        int[] lines = new int[3];
+        boolean truncated = false;
+        try {
+            while (true) {
+                slots.acquire(); // read the next part / zip entry only when a slot is free
+                if (request.isCancelled()) return null;
+                if (results.size() == maxFiles || !receipts.hasNext()) {
+                    truncated = results.size() == maxFiles && receipts.hasNext();
+                    slots.release();
+                    break;
+                }
+                Receipt receipt = receipts.next();
+                int index = results.size();
+                CompletableFuture<ReceiptResult> f = process(index, receipt, lines, request);
+                f.whenComplete((r, e) -> {
+                    slots.release();
+                    onReceipt.accept(r);
+                });
+                results.add(f);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("영수증 일괄 처리 중단", e);
+        }
+
+        List<String> all = new ArrayList<>();
+        int failed = 0;
+        for (CompletableFuture<ReceiptResult> f : results) {
+            ReceiptResult r = f.join(); // never fails, errors are in the result
+            if (r.error() != null) failed++;
+            else all.addAll(r.ingredients());
+        }
+        synchronized (lines) {
+            return new Summary(IngredientExtractor.dedupLowerPreserve(all), results.size(), failed, truncated,
+                    Map.of("local", lines[0], "remote", lines[1], "skipped", lines[2]));
+        }
+    }
+
+    private CompletableFuture<ReceiptResult> process(int index, Receipt receipt, int[] lines, CompletableFuture<?> request) {
+        if (receipt.rejected() != null) {
+            return CompletableFuture.completedFuture(new ReceiptResult(index, receipt.name(), List.of(), receipt.rejected()));
+        }
+        CompletableFuture<String> ocr = CompletableFuture.supplyAsync(() -> ocrService.extractText(receipt.file()), executor);
+        CompletableFuture<IngredientExtractor.Extraction> extracted = ocr.thenCompose(text -> {
+            CompletableFuture<IngredientExtractor.Extraction> f = extractor.extractAsync(text, null);
+            request.whenComplete((v, e) -> {
+                if (request.isCancelled()) f.cancel(true);
+            });
+            return f;
+        });
+        request.whenComplete((v, e) -> {
+            if (request.isCancelled()) ocr.cancel(false); // not yet started: skip it
+        });
+        return extracted.handle((extraction, e) -> {
+            if (e != null) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                return new ReceiptResult(index, receipt.name(), List.of(), cause.getMessage());
+            }
+            synchronized (lines) {
+                lines[0] += extraction.localLines();
+                lines[1] += extraction.remoteLines();
+                lines[2] += extraction.skippedLines();
+            }
+            return new ReceiptResult(index, receipt.name(), extraction.ingredients(), null);
+        });
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /** A zip entry held in memory, so it can go through the same OCR path as an uploaded part. */
+    static final class InMemoryFile implements MultipartFile {
+        private final String name;
+        private final byte[] bytes;
+
+        InMemoryFile(String name, byte[] bytes) {
+            this.name = name;
+            this.bytes = bytes;
+        }
+
+        @Override
+        public String getName() {
+            return "file";
+        }
+
+        @Override
+        public String getOriginalFilename() {
+            return name;
+        }
+
+        @Override
+        public String getContentType() {
+            return null;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return bytes.length == 0;
+        }
+
+        @Override
+        public long getSize() {
+            return bytes.length;
+        }
+
+        @Override
+        public byte[] getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(bytes);
+        }
+
+        @Override
+        public void transferTo(File dest) throws IOException {
+            Files.write(dest.toPath(), bytes);
+        }
+
+        @Override
+        public void transferTo(Path dest) throws IOException {
+            Files.write(dest, bytes);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.ocrproject.service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Consecutive-failure circuit breaker. After {@code failureThreshold} failed or slow calls in a row the breaker
+ * opens and {@link #tryAcquire} refuses calls for {@code openFor}; then a single probe call is let through
+ * (half-open) and its outcome closes or re-opens the breaker. Callers check {@link #isOpen} to pick their
+ * fallback up front instead of waiting for each upstream call to time out.
+ *
+ * Each admitted call carries the generation it was admitted in, and the generation changes whenever the breaker
+ * opens or closes. An outcome from an earlier generation is stale and ignored: a slow call admitted while CLOSED
+ * that succeeds after the breaker opened does not close it, and only the probe's own outcome ends HALF_OPEN.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, HALF_OPEN, OPEN }
+
+    /** A call let through by {@link #tryAcquire}; hand it back with exactly one outcome. */
+    public record Admission(long generation, boolean probe) {}
+
+    private final int failureThreshold;
+    private final long openForNanos;
+
+    private State state = State.CLOSED;
+    private long generation;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+    private final AtomicLong opens = new AtomicLong();
+    private final AtomicLong shortCircuited = new AtomicLong();
+    private final AtomicLong staleOutcomes = new AtomicLong();
+
+    public CircuitBreaker(int failureThreshold, Duration openFor) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openForNanos = openFor.toNanos();
+    }
+
+    /** The admission for a call that may be made now, or null; in half-open state only the first caller gets the probe. */
+    public synchronized Admission tryAcquire() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openForNanos) {
+            state = State.HALF_OPEN;
+            probeInFlight = false;
+        }
+        if (state == State.CLOSED) return new Admission(generation, false);
+        if (state == State.HALF_OPEN && !probeInFlight) {
+            probeInFlight = true;
+            return new Admission(generation, true);
+        }
+        shortCircuited.incrementAndGet();
+        return null;
+    }
+
+    /** Open and not yet due for a probe; does not take the probe slot. */
+    public synchronized boolean isOpen() {
+        return state == State.OPEN && System.nanoTime() - openedAt < openForNanos;
+    }
+
+    public synchronized void onSuccess(Admission admission) {
+        if (!current(admission)) return;
+        consecutiveFailures = 0;
+        if (admission.probe()) {
+            state = State.CLOSED;
+            generation++;
+            probeInFlight = false;
+        }
+    }
+
+    public synchronized void onFailure(Admission admission) {
+        if (!current(admission)) return;
+        consecutiveFailures++;
+        if (admission.probe() || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            generation++;
+            openedAt = System.nanoTime();
+            probeInFlight = false;
+            opens.incrementAndGet();
+        }
+    }
+
+    /** For a call the caller abandoned: no outcome is recorded, but a half-open probe gives its slot back. */
+    public synchronized void onCancel(Admission admission) {
+        if (current(admission) && admission.probe()) probeInFlight = false;
+    }
+
+    // Admitted in this generation, as a regular call while CLOSED or as the probe while HALF_OPEN
+    private boolean current(Admission admission) {
+        boolean current = admission.generation() == generation
+                && (admission.probe() ? state == State.HALF_OPEN : state == State.CLOSED);
+        if (!current) staleOutcomes.incrementAndGet();
+        return current;
+    }
+
+    /** Seconds until the next probe, at least 1; for Retry-After. */
+    public synchronized long retryAfterSeconds() {
+        if (state != State.OPEN) return 1;
+        long left = openForNanos - (System.nanoTime() - openedAt);
+        return Math.max(1, Duration.ofNanos(left).toSeconds());
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("state", state().ordinal()); // 0 closed, 1 half-open, 2 open
+        out.put("opens", opens.get());
+        out.put("shortCircuited", shortCircuited.get());
+        out.put("staleOutcomes", staleOutcomes.get());
+        return out;
+    }
+}
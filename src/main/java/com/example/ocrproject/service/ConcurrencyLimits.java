@@ -0,0 +1,101 @@
+package com.example.ocrproject.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Adaptive concurrency limits ({@link AdaptiveLimiter}) for each /api/ocr endpoint and each upstream, plus the
+ * Gemini circuit breaker. Upstream limits start at the hard caps ({@code ocr.vision.max-in-flight},
+ * {@code gemini.http.max-concurrency}, {@code recipe.api.max-concurrency}) and back off when calls get slower
+ * than {@code limits.<upstream>.latency-target}; endpoint limits do the same against
+ * {@code limits.endpoint.latency-target}. With {@code limits.enabled=false} nothing is ever shed.
+ */
+@Component
+public class ConcurrencyLimits {
+
+    public static final String VISION = "vision";
+    public static final String GEMINI = "gemini";
+    public static final String THEMEALDB = "themealdb";
+
+    private final Map<String, AdaptiveLimiter> endpoints = new LinkedHashMap<>();
+    private final Map<String, AdaptiveLimiter> upstreams = new LinkedHashMap<>();
+    private final Map<String, Duration> latencyTargets = new LinkedHashMap<>();
+    private final CircuitBreaker geminiBreaker;
+    private final Duration retryAfter;
+
+    public ConcurrencyLimits(@Value("${limits.enabled:true}") boolean enabled,
+                             @Value("${limits.min:2}") int min,
+                             @Value("${limits.retry-after:5s}") Duration retryAfter,
+                             @Value("${limits.endpoint.max:50}") int endpointMax,
+                             @Value("${limits.endpoint.latency-target:15s}") Duration endpointTarget,
+                             @Value("${limits.bulk.max:4}") int bulkMax,
+                             @Value("${limits.bulk.latency-target:5m}") Duration bulkTarget,
+                             @Value("${ocr.vision.max-in-flight:64}") int visionMax,
+                             @Value("${limits.vision.latency-target:5s}") Duration visionTarget,
+                             @Value("${gemini.http.max-concurrency:16}") int geminiMax,
+                             @Value("${limits.gemini.latency-target:8s}") Duration geminiTarget,
+                             @Value("${recipe.api.max-concurrency:6}") int mealDbMax,
+                             @Value("${limits.themealdb.latency-target:2s}") Duration mealDbTarget,
+                             @Value("${limits.gemini.breaker.failure-threshold:5}") int breakerFailures,
+                             @Value("${limits.gemini.breaker.open-for:30s}") Duration breakerOpenFor) {
+        this.retryAfter = retryAfter;
+        for (String endpoint : new String[]{"ocr", "recommend", "stream"}) {
+            endpoints.put(endpoint, limiter(enabled, min, endpointMax, endpointTarget));
+        }
+        endpoints.put("bulk", limiter(enabled, 1, bulkMax, bulkTarget));
+        upstream(enabled, min, VISION, visionMax, visionTarget);
+        upstream(enabled, min, GEMINI, geminiMax, geminiTarget);
+        upstream(enabled, min, THEMEALDB, mealDbMax, mealDbTarget);
+        this.geminiBreaker = enabled
+                ? new CircuitBreaker(breakerFailures, breakerOpenFor)
+                : new CircuitBreaker(Integer.MAX_VALUE, Duration.ZERO);
+    }
+
+    // Never sheds, for tests and benchmarks
+    static ConcurrencyLimits unlimited() {
+        return new ConcurrencyLimits(false, 1, Duration.ofSeconds(1), 1, Duration.ZERO, 1, Duration.ZERO, 1, Duration.ZERO,
+                1, Duration.ZERO, 1, Duration.ZERO, 1, Duration.ZERO);
+    }
+
+    private void upstream(boolean enabled, int min, String name, int max, Duration target) {
+        upstreams.put(name, limiter(enabled, min, max, target));
+        latencyTargets.put(name, enabled ? target : Duration.ofDays(1));
+    }
+
+    private static AdaptiveLimiter limiter(boolean enabled, int min, int max, Duration target) {
+        return enabled ? new AdaptiveLimiter(min, max, target) : new AdaptiveLimiter(1, Integer.MAX_VALUE, Duration.ofDays(1));
+    }
+
+    public AdaptiveLimiter endpoint(String name) {
+        return endpoints.get(name);
+    }
+
+    public AdaptiveLimiter upstream(String name) {
+        return upstreams.get(name);
+    }
+
+    /** Calls slower than this count as failures for the upstream's limit and breaker. */
+    public Duration latencyTarget(String upstream) {
+        return latencyTargets.get(upstream);
+    }
+
+    public CircuitBreaker geminiBreaker() {
+        return geminiBreaker;
+    }
+
+    public OverloadedException overloaded(String what) {
+        return new OverloadedException(what + " 동시 처리 한도 초과", Math.max(1, retryAfter.toSeconds()));
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        endpoints.forEach((name, l) -> l.stats().forEach((k, v) -> out.put("endpoint." + name + "." + k, v)));
+        upstreams.forEach((name, l) -> l.stats().forEach((k, v) -> out.put(name + "." + k, v)));
+        geminiBreaker.stats().forEach((k, v) -> out.put("gemini.breaker." + k, v));
+        return out;
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.ocrproject.service;
+
+import com.example.ocrproject.dto.RecipeSuggestion;
+import com.example.ocrproject.entity.FridgeItem;
+import com.example.ocrproject.repository.FridgeItemRepository;
+import com.example.ocrproject.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-user fridge inventory, persisted in the H2 {@code fridge_item} table, with recommendations kept up to date
+ * as it changes. Returning users get their recipes from what they already stored, without OCR or Gemini calls.
+ *
+ * Each user's fridge is loaded once into a view (at most {@code fridge.max-users} are kept; an evicted one is
+ * reloaded from the table on next use). The view holds a {@link RecipeEngine.Pantry}; adding or using up an
+ * ingredient adjusts its scores by that one ingredient instead of rescoring the whole fridge. A pantry only holds
+ * entries for the recipes its ingredients touch, so a view's size follows the fridge, not the catalog. The two
+ * items that expire first (then the oldest) are the primary ingredients, so recipes using them rank higher. When
+ * the recipe catalog is reloaded, each view rebuilds its pantry the next time it is used.
+ *
+ * Writes for one user are serialized on that user's view, so the table and the view change together.
+ */
+@Service
+public class FridgeService {
+
+    private static final int PRIMARY_COUNT = 2;
+
+    private static final Comparator<Item> USE_FIRST = Comparator
+            .comparing(Item::expiresAt, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Item::addedAt, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Item::id);
+
+    public record Item(Long id, String name, int quantity, LocalDate addedAt, LocalDate expiresAt) {}
+
+    /** An ingredient to store; {@code quantity} defaults to 1 and {@code expiresAt} may be null. */
+    public record Addition(String name, Integer quantity, LocalDate expiresAt) {}
+
+    private final FridgeItemRepository repository;
+    private final UserRepository users;
+    private final RecipeEngine engine;
+    private final Cache<Long, View> views; // user id -> view
+
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong updates = new AtomicLong();
+    private final AtomicLong recommendations = new AtomicLong();
+
+    public FridgeService(FridgeItemRepository repository, UserRepository users, RecipeEngine engine,
+                         @Value("${fridge.max-users:10000}") long maxUsers) {
+        this.repository = repository;
+        this.users = users;
+        this.engine = engine;
+        this.views = Caffeine.newBuilder().maximumSize(maxUsers).build();
+    }
+
+    public List<Item> items(long userId) {
+        View view = view(userId);
+        synchronized (view) {
+            return view.items();
+        }
+    }
+
+    /** Stores the ingredients, adding to the quantity of ones already in the fridge. Returns the fridge. */
+    public List<Item> add(long userId, List<Addition> additions) {
+        View view = view(userId);
+        synchronized (view) {
+            LocalDate today = LocalDate.now();
+            for (Addition a : additions) {
+                String name = a.name() == null ? "" : a.name().trim();
+                if (name.isEmpty()) continue;
+                int quantity = a.quantity() == null ? 1 : Math.max(1, a.quantity());
+                FridgeItem row = repository.findByUserIdAndIngredientIgnoreCase(userId, name).orElse(null);
+                if (row == null) {
+                    row = new FridgeItem(users.getReferenceById(userId), name, quantity, today, a.expiresAt());
+                } else {
+                    row.setQuantity(row.getQuantity() + quantity);
+                    // The earliest known expiry is the one to act on
+                    LocalDate expiry = a.expiresAt();
+                    if (expiry != null && (row.getExpiresAt() == null || expiry.isBefore(row.getExpiresAt()))) {
+                        row.setExpiresAt(expiry);
+                    }
+                }
+                view.put(item(repository.save(row)));
+            }
+            return view.items();
+        }
+    }
+
+    /** Uses up {@code quantity} of an item; the item is removed when none is left. False if there is no such item. */
+    public boolean consume(long userId, long itemId, int quantity) {
+        View view = view(userId);
+        synchronized (view) {
+            FridgeItem row = repository.findByIdAndUserId(itemId, userId).orElse(null);
+            if (row == null) return false;
+            int left = row.getQuantity() - Math.max(1, quantity);
+            if (left > 0) {
+                row.setQuantity(left);
+                view.put(item(repository.save(row)));
+            } else {
+                repository.delete(row);
+                view.remove(row.getIngredient());
+            }
+            return true;
+        }
+    }
+
+    public boolean remove(long userId, long itemId) {
+        return consume(userId, itemId, Integer.MAX_VALUE);
+    }
+
+    /** The best {@code limit} recipes for everything in the fridge; no upstream call is made. */
+    public List<RecipeSuggestion> recommend(long userId, int limit) {
+        recommendations.incrementAndGet();
+        View view = view(userId);
+        synchronized (view) {
+            return view.recommend(limit);
+        }
+    }
+
+    private View view(long userId) {
+        return views.get(userId, id -> {
+            loads.incrementAndGet();
+            View view = new View(engine.pantry());
+            for (FridgeItem row : repository.findByUserIdOrderByAddedAtAscIdAsc(id)) view.put(item(row));
+            return view;
+        });
+    }
+
+    private static Item item(FridgeItem row) {
+        return new Item(row.getId(), row.getIngredient(), row.getQuantity(), row.getAddedAt(), row.getExpiresAt());
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("users", views.estimatedSize());
+        out.put("loads", loads.get());
+        out.put("updates", updates.get());
+        out.put("recommendations", recommendations.get());
+        return out;
+    }
+
+    // One user's items keyed by lower-cased name, and the pantry scored from them
+    private final class View {
+        private final Map<String, Item> items = new HashMap<>();
+        private final Set<String> primary = new HashSet<>(); // keys added to the pantry as primary
+        private RecipeEngine.Pantry pantry;
+        private List<RecipeSuggestion> top; // last result, until the fridge or the catalog changes
+        private int topLimit;
+
+        View(RecipeEngine.Pantry pantry) {
+            this.pantry = pantry;
+        }
+
+        // After a catalog reload the pantry is rebuilt once from the items, with the same primaries
+        private void refresh() {
+            if (pantry.isCurrent()) return;
+            pantry = engine.pantry();
+            items.forEach((key, item) -> pantry.add(item.name(), primary.contains(key)));
+            top = null;
+        }
+
+        List<Item> items() {
+            List<Item> out = new ArrayList<>(items.values());
+            out.sort(Comparator.comparing(Item::addedAt, Comparator.nullsLast(Comparator.naturalOrder()))
+                    .thenComparing(Item::id));
+            return out;
+        }
+
+        void put(Item item) {
+            refresh();
+            String key = key(item.name());
+            Item old = items.put(key, item);
+            if (old == null) pantry.add(item.name(), false);
+            rebalance();
+        }
+
+        void remove(String name) {
+            refresh();
+            String key = key(name);
+            Item old = items.remove(key);
+            if (old == null) return;
+            pantry.remove(old.name(), primary.remove(key));
+            rebalance();
+        }
+
+        // Moves the primary flag to the items that should be used first now, touching only the ones that changed
+        private void rebalance() {
+            Set<String> wanted = new HashSet<>();
+            items.values().stream().sorted(USE_FIRST).limit(PRIMARY_COUNT).forEach(i -> wanted.add(key(i.name())));
+            for (Iterator<String> it = primary.iterator(); it.hasNext(); ) {
+                String key = it.next();
+                if (wanted.contains(key)) continue;
+                String name = items.get(key).name();
+                pantry.remove(name, true);
+                pantry.add(name, false);
+                it.remove();
+            }
+            for (String key : wanted) {
+                if (!primary.add(key)) continue;
+                String name = items.get(key).name();
+                pantry.remove(name, false);
+                pantry.add(name, true);
+            }
+            top = null;
+            updates.incrementAndGet();
+        }
+
+        List<RecipeSuggestion> recommend(int limit) {
+            refresh();
+            if (top == null || topLimit != limit) {
+                top = pantry.top(limit);
+                topLimit = limit;
+            }
+            return top;
+        }
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.ocrproject.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Cache for Gemini ingredient extraction keyed on a normalized fingerprint of the OCR text.
+ *
+ * Normalization keeps only letters (lower-cased) of each line, so prices, dates, quantities, whitespace and
+ * punctuation do not change the key and two receipts from the same store with the same items hit the same entry.
+ * With {@code gemini.cache.line-level} enabled, results are also cached per normalized line, and only lines
+ * that were never seen are sent to Gemini.
+ */
+@Component
+public class GeminiResultCache {
+
+    // "3,500원" style amounts; digits are dropped anyway, this removes the trailing currency word
+    private static final Pattern WON_AMOUNT = Pattern.compile("\\d[\\d,.]*\\s*원");
+
+    private final Cache<String, String> texts;   // receipt fingerprint -> comma-separated ingredients
+    private final Cache<String, String> lines;   // normalized line -> ingredients on that line ("" when none)
+    private final boolean lineLevel;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong lineHits = new AtomicLong();
+    private final AtomicLong lineMisses = new AtomicLong();
+    private final AtomicLong savedNanos = new AtomicLong();
+    private volatile double avgUpstreamNanos;
+
+    public GeminiResultCache(@Value("${gemini.cache.max-entries:5000}") long maxEntries,
+                             @Value("${gemini.cache.ttl:7d}") Duration ttl,
+                             @Value("${gemini.cache.line-level:false}") boolean lineLevel,
+                             @Value("${gemini.cache.line-max-entries:50000}") long lineMaxEntries) {
+        this.texts = Caffeine.newBuilder().maximumSize(maxEntries).expireAfterWrite(ttl).build();
+        this.lines = Caffeine.newBuilder().maximumSize(lineMaxEntries).expireAfterWrite(ttl).build();
+        this.lineLevel = lineLevel;
+    }
+
+    public static String normalizeLine(String line) {
+        String s = WON_AMOUNT.matcher(line).replaceAll(" ");
+        StringBuilder sb = new StringBuilder(s.length());
+        s.codePoints().filter(Character::isLetter).map(Character::toLowerCase).forEach(sb::appendCodePoint);
+        return sb.toString();
+    }
+
+    /** Normalized lines in their original order; lines that normalize to nothing (totals, dates) are dropped. */
+    public static List<String> normalizedLines(String text) {
+        if (text == null) return List.of();
+        List<String> out = new ArrayList<>();
+        for (String line : text.split("\\R")) {
+            String n = normalizeLine(line);
+            if (!n.isEmpty()) out.add(n);
+        }
+        return out;
+    }
+
+    /** Order-insensitive digest of the distinct normalized lines. */
+    public static String fingerprint(String text) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            for (String line : new TreeSet<>(normalizedLines(text))) {
+                md.update(line.getBytes(StandardCharsets.UTF_8));
+                md.update((byte) '\n');
+            }
+            return HexFormat.of().formatHex(md.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public boolean lineLevel() {
+        return lineLevel;
+    }
+
+    public String get(String fingerprint) {
+        String v = texts.getIfPresent(fingerprint);
+        if (v != null) {
+            hits.incrementAndGet();
+            savedNanos.addAndGet((long) avgUpstreamNanos);
+        } else {
+            misses.incrementAndGet();
+        }
+        return v;
+    }
+
+    public void put(String fingerprint, String items) {
+        if (items != null) texts.put(fingerprint, items);
+    }
+
+    public String getLine(String normalizedLine) {
+        String v = lines.getIfPresent(normalizedLine);
+        if (v != null) lineHits.incrementAndGet(); else lineMisses.incrementAndGet();
+        return v;
+    }
+
+    public void putLine(String normalizedLine, String items) {
+        lines.put(normalizedLine, items == null ? "" : items);
+    }
+
+    /** Feeds the moving average used to estimate the latency a hit saves. */
+    public void recordUpstreamLatency(long nanos) {
+        double avg = avgUpstreamNanos;
+        avgUpstreamNanos = avg == 0 ? nanos : avg * 0.9 + nanos * 0.1;
+    }
+
+    public Map<String, Object> stats() {
+        long h = hits.get(), m = misses.get();
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("hits", h);
+        out.put("misses", m);
+        out.put("hitRatio", h + m == 0 ? 0.0 : (double) h / (h + m));
+        out.put("lineHits", lineHits.get());
+        out.put("lineMisses", lineMisses.get());
+        out.put("savedLatencyMs", savedNanos.get() / 1_000_000);
+        out.put("size", texts.estimatedSize());
+        out.put("lineSize", lines.estimatedSize());
+        return out;
+    }
+}
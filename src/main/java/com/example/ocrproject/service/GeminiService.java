@@ -1,33 +1,200 @@
 package com.example.ocrproject.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 @Service
 public class GeminiService {
 
+    private static final Logger log = LoggerFactory.getLogger(GeminiService.class);
+
     @Value("${gemini.api.key}")
     private String apiKey;
 
-    private static final String GEMINI_URL =
-            "https://generativelanguage.googleapis.com/v1/models/gemini-1.5-pro-002:generateContent?key=";
+    // Row numbers are bounded so a runaway digit string in the answer is skipped instead of overflowing int
+    private static final Pattern NUMBERED_ROW = Pattern.compile("\\s*(\\d{1,4})\\s*[:.)]\\s*(.*)");
+    private static final SecureRandom NONCES = new SecureRandom();
 
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final String generateUrl;
+    private final String streamUrl;
+    private final GeminiResultCache cache;
+    private final TranslationMemory translations;
+    private final PipelineMetrics metrics;
+    private final int batchMaxItems;
+    private final int batchMaxChars;
 
+    // One client for the whole service so HTTP/2 connections to Gemini are reused across requests
+    private final HttpClient http;
+    private final Duration requestTimeout;
+    // Calls in flight to Gemini, across extraction, streaming and translation
+    private final AsyncLimiter limiter;
+    // Request-path calls are shed by the adaptive limit and skipped while the breaker is open
+    private final ConcurrencyLimits limits;
+    private final SingleFlight<String> extractFlights;
 
-    private final ObjectMapper mapper = new ObjectMapper();
+    public GeminiService(GeminiResultCache cache, TranslationMemory translations, PipelineMetrics metrics,
+                         ConcurrencyLimits limits,
+                         @Value("${gemini.api.base-url:https://generativelanguage.googleapis.com/v1/models/gemini-1.5-pro-002}") String baseUrl,
+                         @Value("${gemini.http.connect-timeout:5s}") Duration connectTimeout,
+                         @Value("${gemini.http.request-timeout:30s}") Duration requestTimeout,
+                         @Value("${gemini.translate.batch-max-items:20}") int batchMaxItems,
+                         @Value("${gemini.translate.batch-max-chars:12000}") int batchMaxChars,
+                         @Value("${gemini.http.max-concurrency:16}") int maxConcurrency,
+                         @Value("${gemini.http.max-queued:256}") int maxQueued,
+                         @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.generateUrl = baseUrl + ":generateContent?key=";
+        this.streamUrl = baseUrl + ":streamGenerateContent?alt=sse&key=";
+        this.cache = cache;
+        this.translations = translations;
+        this.metrics = metrics;
+        this.batchMaxItems = batchMaxItems;
+        this.batchMaxChars = batchMaxChars;
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .executor(VirtualThreads.perTask("gemini-http", virtualThreads))
+                .build();
+        this.requestTimeout = requestTimeout;
+        this.limiter = new AsyncLimiter(maxConcurrency, maxQueued, () -> limits.overloaded("Gemini"));
+        this.limits = limits;
+        this.extractFlights = new SingleFlight<>("gemini.extract", metrics);
+    }
 
     public String extractItemsFromText(String ocrText) {
         try {
-            String prompt = """
+            return extractItemsFromTextAsync(ocrText).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof OverloadedException overloaded) throw overloaded;
+            throw new RuntimeException("Gemini API : " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Non-blocking variant of {@link #extractItemsFromText}. The response is parsed on the HttpClient's
+     * executor, so the calling thread is free as soon as the request is sent. Results are cached on a
+     * normalized fingerprint of the OCR text (see {@link GeminiResultCache}); concurrent misses for the same
+     * fingerprint share one Gemini call.
+     */
+    public CompletableFuture<String> extractItemsFromTextAsync(String ocrText) {
+        String key = GeminiResultCache.fingerprint(ocrText);
+        String cached = cache.get(key);
+        if (cached != null) return CompletableFuture.completedFuture(cached);
+
+        return extractFlights.execute(key, () -> {
+            CompletableFuture<String> result = cache.lineLevel() ? extractByLinesAsync(ocrText) : requestItemsAsync(ocrText);
+            return result.thenApply(items -> {
+                cache.put(key, items);
+                return items;
+            });
+        });
+    }
+
+    /**
+     * Streaming variant of {@link #extractItemsFromTextAsync} built on {@code streamGenerateContent}.
+     * {@code onPartial} receives the accumulated model output each time a chunk arrives (once, with the full
+     * result, on a cache hit). The future completes with the full output.
+     */
+    public CompletableFuture<String> streamItemsFromTextAsync(String ocrText, Consumer<String> onPartial) {
+        String key = GeminiResultCache.fingerprint(ocrText);
+        String cached = cache.get(key);
+        if (cached != null) {
+            onPartial.accept(cached);
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        HttpRequest request;
+        try {
+            request = buildRequest(streamUrl, extractionPrompt(ocrText));
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        // The permit is held until the whole event stream has been read
+        return guarded("stream", () -> streamAsync(request, key, onPartial));
+    }
+
+    // Cancelling the returned future cancels the exchange, or stops reading the event stream and closes it
+    private CompletableFuture<String> streamAsync(HttpRequest request, String key, Consumer<String> onPartial) {
+        long start = System.nanoTime();
+        CompletableFuture<HttpResponse<Stream<String>>> sent = http.sendAsync(request, HttpResponse.BodyHandlers.ofLines());
+        CompletableFuture<String> result = new CompletableFuture<>();
+        sent.whenComplete((response, err) -> {
+            if (err != null) recordCall("stream", start, -1);
+        }).thenApply(response -> {
+            StringBuilder text = new StringBuilder();
+            try (Stream<String> lines = response.body()) {
+                if (response.statusCode() != 200) {
+                    recordCall("stream", start, response.statusCode());
+                    throw new RuntimeException("Gemini API 응답 오류: HTTP " + response.statusCode());
+                }
+                lines.takeWhile(line -> !result.isDone()).filter(line -> line.startsWith("data:")).forEach(line -> {
+                    String chunk = chunkText(line.substring(5).trim());
+                    if (chunk.isEmpty()) return;
+                    text.append(chunk);
+                    onPartial.accept(text.toString());
+                });
+            }
+            if (result.isDone()) return null; // cancelled mid-stream; the partial text is not cached
+            if (text.length() == 0) {
+                throw new RuntimeException("Gemini API 응답 오류: candidates가 없음");
+            }
+            recordCall("stream", start, 200);
+            cache.recordUpstreamLatency(System.nanoTime() - start);
+            String items = text.toString();
+            cache.put(key, items);
+            return items;
+        }).whenComplete((items, err) -> {
+            if (err != null) result.completeExceptionally(err);
+            else result.complete(items);
+        });
+        result.whenComplete((v, e) -> {
+            if (result.isCancelled()) sent.cancel(true);
+        });
+        return result;
+    }
+
+    private CompletableFuture<String> requestItemsAsync(String ocrText) {
+        String prompt = extractionPrompt(ocrText);
+        long start = System.nanoTime();
+        return generateAsync("extract", prompt).thenApply(items -> {
+            cache.recordUpstreamLatency(System.nanoTime() - start);
+            log.atDebug().addKeyValue("operation", "extract").addKeyValue("items", items).log("Gemini 응답");
+            return items;
+        });
+    }
+
+    private static String extractionPrompt(String ocrText) {
+        return """
                     다음은 OCR로 추출된 영수증 텍스트입니다. 이 텍스트에서 '요리에 사용할 수 있는 재료명'만 추출하세요.
                     
                     지침:
@@ -41,55 +208,76 @@ public class GeminiService {
 
                     OCR 텍스트:
 """ + ocrText;
+    }
 
-            // 요청 JSON 구성
-            ObjectNode rootNode = mapper.createObjectNode();
-            ArrayNode contents = mapper.createArrayNode();
-            ObjectNode contentNode = mapper.createObjectNode();
-            ArrayNode parts = mapper.createArrayNode();
-            ObjectNode partText = mapper.createObjectNode();
-            partText.put("text", prompt);
-            parts.add(partText);
-            contentNode.set("parts", parts);
-            contents.add(contentNode);
-            rootNode.set("contents", contents);
-
-            // HTTP 요청 보내기
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(GEMINI_URL + apiKey))
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(rootNode)))
-                    .build();
-
-            HttpResponse<String> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
-
-            String responseBody = response.body();
-            System.out.println("Gemini 응답: " + responseBody); // 👉 로그 출력
-
-            JsonNode json = mapper.readTree(responseBody);
-
-            // ✅ candidates 존재 여부 체크
-            JsonNode candidates = json.get("candidates");
-            if (candidates == null || !candidates.isArray() || candidates.size() == 0) {
-                throw new RuntimeException("Gemini API 응답 오류: candidates가 없음");
-            }
+    // Line-level mode: reuse cached per-line results and only send lines never seen before
+    private CompletableFuture<String> extractByLinesAsync(String ocrText) {
+        List<String> order = new ArrayList<>(new LinkedHashSet<>(GeminiResultCache.normalizedLines(ocrText)));
+        Map<String, String> known = new HashMap<>();
+        Map<String, String> unseen = new LinkedHashMap<>(); // normalized line -> original line
+        for (String line : (ocrText == null ? "" : ocrText).split("\\R")) {
+            String n = GeminiResultCache.normalizeLine(line);
+            if (n.isEmpty() || known.containsKey(n) || unseen.containsKey(n)) continue;
+            String items = cache.getLine(n);
+            if (items != null) known.put(n, items); else unseen.put(n, line.trim());
+        }
 
-            JsonNode content = candidates.get(0).path("content");
-            if (!content.has("parts")) {
-                throw new RuntimeException("Gemini API 응답 오류: content 안에 parts가 없음");
+        CompletableFuture<Map<String, String>> fresh = unseen.isEmpty()
+                ? CompletableFuture.completedFuture(Map.of())
+                : requestItemsPerLineAsync(unseen);
+        return fresh.thenApply(found -> {
+            List<String> out = new ArrayList<>();
+            for (String n : order) {
+                String items = known.containsKey(n) ? known.get(n) : found.get(n);
+                if (items != null && !items.isBlank()) out.add(items);
             }
+            return String.join(", ", out);
+        });
+    }
 
-            JsonNode partsArray = content.path("parts");
-            if (!partsArray.isArray() || partsArray.size() == 0) {
-                throw new RuntimeException("Gemini API 응답 오류: parts 배열이 비어 있음");
-            }
+    private CompletableFuture<Map<String, String>> requestItemsPerLineAsync(Map<String, String> lines) {
+        List<String> keys = new ArrayList<>(lines.keySet());
+        StringBuilder numbered = new StringBuilder();
+        for (int i = 0; i < keys.size(); i++) {
+            numbered.append(i + 1).append(": ").append(lines.get(keys.get(i))).append('\n');
+        }
+        String prompt = """
+                다음은 OCR로 추출된 영수증 텍스트의 줄 목록입니다. 줄마다 '요리에 사용할 수 있는 재료명'만 추출하세요.
+
+                지침:
+                - 가격, 수량, 날짜, 결제 정보, 매장명, 광고 문구, 카테고리 표기는 모두 제외합니다.
+                - 브랜드명/상품명 수식은 제거하고 '재료명'만 남깁니다.
+                - 불용어/형용 표현(클래식, 라이트, 풀팻 등)은 제거하고 핵심 재료명만 남깁니다.
+                - 입력과 같은 번호를 붙여 '번호: 재료명' 형식으로 줄마다 한 줄씩 출력합니다. 한 줄에 재료가 여러 개면 쉼표로 구분합니다.
+                - 재료가 없는 줄은 '번호:'만 출력합니다.
+                - 절대 다른 문구, 설명, 불릿, 따옴표, 마크다운을 넣지 마세요.
+
+                줄 목록:
+                """ + numbered;
 
-            JsonNode textNode = partsArray.get(0).path("text");
-            return textNode.asText();
+        long start = System.nanoTime();
+        return generateAsync("lines", prompt).thenApply(text -> {
+            cache.recordUpstreamLatency(System.nanoTime() - start);
+            Map<String, String> found = new HashMap<>();
+            numberedRows(text, keys.size()).forEach((idx, items) -> {
+                found.put(keys.get(idx - 1), items);
+                cache.putLine(keys.get(idx - 1), items);
+            });
+            return found;
+        });
+    }
 
-        } catch (Exception e) {
-            throw new RuntimeException("Gemini API : " + e.getMessage(), e);
+    /** Row number (1..count) -> text of each "번호: 재료명" row; other rows and out-of-range numbers are skipped. */
+    static Map<Integer, String> numberedRows(String text, int count) {
+        Map<Integer, String> rows = new HashMap<>();
+        for (String row : text.split("\\R")) {
+            Matcher m = NUMBERED_ROW.matcher(row);
+            if (!m.matches()) continue;
+            int idx = Integer.parseInt(m.group(1));
+            if (idx < 1 || idx > count) continue;
+            rows.put(idx, m.group(2).trim());
         }
+        return rows;
     }
 
     /**
@@ -97,50 +285,332 @@ public class GeminiService {
      * without extra explanations, quotes, or markdown.
      */
     public String translateToKorean(String text) {
-        if (text == null || text.isBlank()) return text;
         try {
-            String prompt = """
-                    아래 영어 텍스트를 자연스러운 한국어로 번역하세요.\n
-                    규칙:\n
-                    - 출력에는 번역문만 포함하세요.\n
-                    - 설명, 따옴표, 번호, 불릿, 마크다운을 포함하지 마세요.\n
-                    
-                    영어 텍스트:\n
-                    """ + text;
-
-            ObjectNode rootNode = mapper.createObjectNode();
-            ArrayNode contents = mapper.createArrayNode();
-            ObjectNode contentNode = mapper.createObjectNode();
-            ArrayNode parts = mapper.createArrayNode();
-            ObjectNode partText = mapper.createObjectNode();
-            partText.put("text", prompt);
-            parts.add(partText);
-            contentNode.set("parts", parts);
-            contents.add(contentNode);
-            rootNode.set("contents", contents);
-
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(GEMINI_URL + apiKey))
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(rootNode)))
-                    .build();
-
-            HttpResponse<String> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
-            String responseBody = response.body();
-
-            JsonNode json = mapper.readTree(responseBody);
-            JsonNode candidates = json.get("candidates");
-            if (candidates == null || !candidates.isArray() || candidates.size() == 0) {
-                throw new RuntimeException("Gemini API : candidates");
+            return translateToKoreanAsync(text).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new RuntimeException("Gemini : " + cause.getMessage(), cause);
+        }
+    }
+
+    public CompletableFuture<String> translateToKoreanAsync(String text) {
+        if (text == null || text.isBlank()) return CompletableFuture.completedFuture(text);
+        String known = translations.find(text);
+        if (known != null) return CompletableFuture.completedFuture(known);
+        return requestTranslationAsync(text).thenApply(ko -> {
+            translations.put(text, ko);
+            return ko;
+        });
+    }
+
+    private CompletableFuture<String> requestTranslationAsync(String text) {
+        String prompt = """
+                아래 영어 텍스트를 자연스러운 한국어로 번역하세요.\n
+                규칙:\n
+                - 출력에는 번역문만 포함하세요.\n
+                - 설명, 따옴표, 번호, 불릿, 마크다운을 포함하지 마세요.\n
+                
+                영어 텍스트:\n
+                """ + text;
+
+        return generateAsync("translate", prompt);
+    }
+
+    /**
+     * Translates many texts, reusing the translation memory and packing the rest into as few Gemini calls as
+     * {@code gemini.translate.batch-max-items} / {@code batch-max-chars} allow. Texts whose translation is missing
+     * from a batch response are left out of the result (and retried by the next caller).
+     */
+    public CompletableFuture<Map<String, String>> translateAllToKoreanAsync(Collection<String> texts) {
+        Map<String, String> out = new ConcurrentHashMap<>();
+        List<List<String>> batches = new ArrayList<>();
+        List<String> batch = new ArrayList<>();
+        int chars = 0;
+        for (String text : new LinkedHashSet<>(texts)) {
+            if (text == null || text.isBlank()) continue;
+            String known = translations.find(text);
+            if (known != null) {
+                out.put(text, known);
+                continue;
+            }
+            if (!batch.isEmpty() && (batch.size() == batchMaxItems || chars + text.length() > batchMaxChars)) {
+                batches.add(batch);
+                batch = new ArrayList<>();
+                chars = 0;
+            }
+            batch.add(text);
+            chars += text.length();
+        }
+        if (!batch.isEmpty()) batches.add(batch);
+
+        CompletableFuture<?>[] calls = batches.stream()
+                .map(b -> translateBatchAsync(b).thenAccept(found -> found.forEach((src, ko) -> {
+                    translations.put(src, ko);
+                    out.put(src, ko);
+                })))
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(calls).thenApply(v -> out);
+    }
+
+    // One call for the whole batch; every item is preceded by a marker carrying a per-call nonce, so text that
+    // happens to contain newlines, numbers or marker-like strings cannot shift the split
+    private CompletableFuture<Map<String, String>> translateBatchAsync(List<String> batch) {
+        if (batch.size() == 1) {
+            return requestTranslationAsync(batch.get(0)).thenApply(ko -> Map.of(batch.get(0), ko));
+        }
+        String nonce = Long.toHexString(NONCES.nextLong());
+        StringBuilder items = new StringBuilder();
+        for (int i = 0; i < batch.size(); i++) {
+            items.append(batchMarker(nonce, i + 1)).append('\n').append(batch.get(i)).append("\n\n");
+        }
+        String prompt = """
+                아래 각 항목의 영어 텍스트를 자연스러운 한국어로 번역하세요.
+                규칙:
+                - 각 항목의 표식 줄(@@로 시작하고 끝나는 줄)을 그대로 먼저 쓰고, 다음 줄부터 그 항목의 번역문을 쓰세요.
+                - 표식과 번역문 외에는 설명, 따옴표, 마크다운을 포함하지 마세요.
+
+                """ + items;
+
+        return generateAsync("translate_batch", prompt).thenApply(text -> {
+            Map<Integer, String> byIndex = splitBatch(text, nonce);
+            Map<String, String> found = new HashMap<>();
+            byIndex.forEach((idx, ko) -> {
+                if (idx >= 1 && idx <= batch.size()) found.put(batch.get(idx - 1), ko);
+            });
+            return found;
+        });
+    }
+
+    static String batchMarker(String nonce, int index) {
+        return "@@" + nonce + "#" + index + "@@";
+    }
+
+    /** Marker index -> translated text. Only markers with this call's nonce split the response. */
+    static Map<Integer, String> splitBatch(String response, String nonce) {
+        Matcher m = Pattern.compile("@@" + Pattern.quote(nonce) + "#(\\d+)@@").matcher(response);
+        Map<Integer, String> out = new HashMap<>();
+        int index = -1, from = 0;
+        while (m.find()) {
+            if (index > 0) putIfPresent(out, index, response.substring(from, m.start()));
+            index = Integer.parseInt(m.group(1));
+            from = m.end();
+        }
+        if (index > 0) putIfPresent(out, index, response.substring(from));
+        return out;
+    }
+
+    private static void putIfPresent(Map<Integer, String> out, int index, String text) {
+        String t = text.strip();
+        if (!t.isEmpty()) out.putIfAbsent(index, t);
+    }
+
+    // Sends a single-part generateContent request and completes with the answer text. The body is parsed as it
+    // is read off the connection, still inside the concurrency cap, and never held as a whole
+    private CompletableFuture<String> generateAsync(String operation, String prompt) {
+        HttpRequest request;
+        try {
+            request = buildRequest(generateUrl, prompt);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return guarded(operation, () -> {
+            long start = System.nanoTime();
+            return http.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream()).whenComplete((response, err) ->
+                    recordCall(operation, start, err == null ? response.statusCode() : -1)
+            ).thenApply(response -> {
+                try (InputStream body = response.body()) {
+                    if (response.statusCode() != 200) {
+                        throw new RuntimeException("Gemini API 응답 오류: HTTP " + response.statusCode());
+                    }
+                    return parseText(body);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        });
+    }
+
+    /** False while the Gemini breaker is open; callers should take their local path instead of calling. */
+    public boolean isAvailable() {
+        return !limits.geminiBreaker().isOpen();
+    }
+
+    /**
+     * Runs {@code call} under the semaphore cap. Request-path operations (everything but background translation,
+     * whose batches are slow by design) first need an adaptive-limit permit, and every operation needs the
+     * breaker's consent; either refusal fails fast with {@link OverloadedException}. Errors and, on the request
+     * path, calls slower than {@code limits.gemini.latency-target} count against the breaker.
+     */
+    private <T> CompletableFuture<T> guarded(String operation, Supplier<CompletableFuture<T>> call) {
+        boolean requestPath = !operation.startsWith("translate");
+        AdaptiveLimiter.Permit permit = null;
+        if (requestPath && (permit = limits.upstream(ConcurrencyLimits.GEMINI).tryAcquire()) == null) {
+            return CompletableFuture.failedFuture(limits.overloaded("Gemini"));
+        }
+        CircuitBreaker breaker = limits.geminiBreaker();
+        CircuitBreaker.Admission admission = breaker.tryAcquire();
+        if (admission == null) {
+            if (permit != null) permit.cancel();
+            return CompletableFuture.failedFuture(
+                    new OverloadedException("Gemini 일시 차단 (circuit open)", breaker.retryAfterSeconds()));
+        }
+        AdaptiveLimiter.Permit admitted = permit;
+        long slowNanos = limits.latencyTarget(ConcurrencyLimits.GEMINI).toNanos();
+        long start = System.nanoTime();
+        CompletableFuture<T> upstream = limiter.call(call);
+        CompletableFuture<T> result = upstream.whenComplete((v, err) -> {
+            if (err instanceof CancellationException) {
+                // the caller went away; says nothing about Gemini's health
+                breaker.onCancel(admission);
+                if (admitted != null) admitted.cancel();
+                return;
+            }
+            boolean slow = requestPath && System.nanoTime() - start > slowNanos;
+            if (err == null && !slow) breaker.onSuccess(admission);
+            else breaker.onFailure(admission);
+            if (admitted != null) {
+                if (err == null) admitted.success();
+                else admitted.failure();
             }
-            JsonNode content = candidates.get(0).path("content");
-            JsonNode partsArray = content.path("parts");
-            if (!partsArray.isArray() || partsArray.size() == 0) {
-                throw new RuntimeException("Gemini API : parts ");
+        });
+        result.whenComplete((v, err) -> {
+            if (result.isCancelled()) upstream.cancel(true);
+        });
+        return result;
+    }
+
+    private void recordCall(String operation, long start, int status) {
+        boolean ok = status == 200;
+        metrics.geminiLatency(operation, ok ? "success" : "error").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (!ok) {
+            metrics.upstreamError("gemini");
+            log.atWarn().addKeyValue("operation", operation).addKeyValue("status", status).log("Gemini 호출 실패");
+        }
+    }
+
+    private void recordUsage(Reply reply) {
+        if (reply.promptTokens() >= 0) metrics.geminiTokens("prompt").record(reply.promptTokens());
+        if (reply.candidatesTokens() >= 0) metrics.geminiTokens("candidates").record(reply.candidatesTokens());
+    }
+
+    private HttpRequest buildRequest(String url, String prompt) throws JsonProcessingException {
+        // 요청 JSON 구성
+        ObjectNode rootNode = mapper.createObjectNode();
+        ArrayNode contents = mapper.createArrayNode();
+        ObjectNode contentNode = mapper.createObjectNode();
+        ArrayNode parts = mapper.createArrayNode();
+        ObjectNode partText = mapper.createObjectNode();
+        partText.put("text", prompt);
+        parts.add(partText);
+        contentNode.set("parts", parts);
+        contents.add(contentNode);
+        rootNode.set("contents", contents);
+
+        return HttpRequest.newBuilder()
+                .uri(URI.create(url + apiKey))
+                .timeout(requestTimeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(rootNode)))
+                .build();
+    }
+
+    // Text of one streamGenerateContent chunk; the final chunk may carry only finishReason/usage
+    private String chunkText(String json) {
+        try (JsonParser p = mapper.getFactory().createParser(json)) {
+            Reply reply = readReply(p);
+            // usageMetadata is cumulative across chunks; count it once, on the chunk that finishes the answer
+            if (reply.finished()) recordUsage(reply);
+            return reply.text() == null ? "" : reply.text();
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    // Pulls candidates[0].content.parts[0].text out of a generateContent response body
+    String parseText(InputStream body) {
+        Reply reply;
+        try (JsonParser p = mapper.getFactory().createParser(body)) {
+            reply = readReply(p);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+        recordUsage(reply);
+        if (reply.text() == null) {
+            throw new RuntimeException("Gemini API 응답 오류: candidates[0].content.parts[0].text가 없음");
+        }
+        return reply.text();
+    }
+
+    // The parts of a response that are used: first part's text (null if absent), whether finishReason is present,
+    // usage token counts (-1 if absent)
+    private record Reply(String text, boolean finished, long promptTokens, long candidatesTokens) {}
+
+    // Reads the response token by token. Only the fields in Reply are materialized; other values, including the
+    // remaining candidates and parts, are skipped without building nodes or strings
+    private static Reply readReply(JsonParser p) throws IOException {
+        String text = null;
+        boolean finished = false;
+        long promptTokens = -1, candidatesTokens = -1;
+        if (p.nextToken() != JsonToken.START_OBJECT) throw new IOException("Gemini 응답이 JSON 객체가 아님");
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            if (field.equals("candidates") && value == JsonToken.START_ARRAY) {
+                if (p.nextToken() == JsonToken.START_OBJECT) {
+                    while (p.nextToken() == JsonToken.FIELD_NAME) {
+                        String name = p.currentName();
+                        JsonToken v = p.nextToken();
+                        if (name.equals("finishReason")) finished = true;
+                        else if (name.equals("content") && v == JsonToken.START_OBJECT) text = readContentText(p);
+                        else p.skipChildren();
+                    }
+                    p.nextToken();
+                }
+                skipRestOfArray(p);
+            } else if (field.equals("usageMetadata") && value == JsonToken.START_OBJECT) {
+                while (p.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = p.currentName();
+                    p.nextToken();
+                    if (name.equals("promptTokenCount")) promptTokens = p.getValueAsLong(-1);
+                    else if (name.equals("candidatesTokenCount")) candidatesTokens = p.getValueAsLong(-1);
+                    else p.skipChildren();
+                }
+            } else {
+                p.skipChildren();
             }
-            return partsArray.get(0).path("text").asText();
-        } catch (Exception e) {
-            throw new RuntimeException("Gemini : " + e.getMessage(), e);
+        }
+        return new Reply(text, finished, promptTokens, candidatesTokens);
+    }
+
+    // At the START_OBJECT of a candidate's content: parts[0].text, or null
+    private static String readContentText(JsonParser p) throws IOException {
+        String text = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.currentName();
+            JsonToken v = p.nextToken();
+            if (!name.equals("parts") || v != JsonToken.START_ARRAY) {
+                p.skipChildren();
+                continue;
+            }
+            if (p.nextToken() == JsonToken.START_OBJECT) {
+                while (p.nextToken() == JsonToken.FIELD_NAME) {
+                    String part = p.currentName();
+                    p.nextToken();
+                    if (part.equals("text") && text == null) text = p.getValueAsString();
+                    else p.skipChildren();
+                }
+                p.nextToken();
+            }
+            skipRestOfArray(p);
+        }
+        return text;
+    }
+
+    // From the current array element (or END_ARRAY) to the array's END_ARRAY
+    private static void skipRestOfArray(JsonParser p) throws IOException {
+        for (JsonToken t = p.currentToken(); t != JsonToken.END_ARRAY; t = p.nextToken()) {
+            if (t == null) throw new IOException("Gemini 응답이 중간에 끝남");
+            p.skipChildren();
         }
     }
-}
\ No newline at end of file
+}
@@ -2,18 +2,93 @@ package com.example.ocrproject.service;
 
 import com.google.cloud.vision.v1.*;
 import com.google.protobuf.ByteString;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.util.List;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class GoogleOcrService {
 
+    private final OcrResultCache cache;
+    private final VisionBatcher batcher;
+    private final ImagePreprocessor preprocessor;
+    private final PipelineMetrics metrics;
+    // Requests waiting on Vision at once. With one virtual thread per request nothing else bounds how many
+    // prepared images are parked here, so this is what keeps heap flat under load.
+    private final Semaphore inFlight;
+    private final ConcurrencyLimits limits;
+    private final SingleFlight<String> flights;
+
+    public GoogleOcrService(OcrResultCache cache, VisionBatcher batcher, ImagePreprocessor preprocessor,
+                            PipelineMetrics metrics, ConcurrencyLimits limits,
+                            @Value("${ocr.vision.max-in-flight:64}") int maxInFlight) {
+        this.cache = cache;
+        this.batcher = batcher;
+        this.preprocessor = preprocessor;
+        this.metrics = metrics;
+        this.inFlight = new Semaphore(Math.max(1, maxInFlight));
+        this.limits = limits;
+        this.flights = new SingleFlight<>("vision", metrics);
+    }
+
     public String extractText(MultipartFile file) {
-        try (ImageAnnotatorClient client = ImageAnnotatorClient.create()) {
-            ByteString imgBytes = ByteString.copyFrom(file.getBytes());
+        // Re-uploads and frontend retries of the same photo skip the Vision round trip
+        String key;
+        try (InputStream in = file.getInputStream()) {
+            key = OcrResultCache.key(in);
+        } catch (Exception e) {
+            throw new RuntimeException("Google OCR 호출 실패: " + e.getMessage(), e);
+        }
+        String cached = cache.get(key);
+        if (cached != null) return cached;
+
+        // A double-tapped upload waits for the first one's Vision call instead of making its own
+        try {
+            return flights.execute(key, () -> CompletableFuture.completedFuture(recognize(file, key))).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
 
+    private String recognize(MultipartFile file, String key) {
+        metrics.uploadBytes().record(file.getSize());
+        ByteString content;
+        long start = System.nanoTime();
+        try {
+            content = preprocessor.prepare(file);
+        } catch (Exception e) {
+            throw new RuntimeException("Google OCR 호출 실패: " + e.getMessage(), e);
+        } finally {
+            metrics.preprocessLatency().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        metrics.preparedBytes().record(content.size());
+
+        // Shed instead of queueing behind a slow Vision; the semaphore below is only the hard cap
+        AdaptiveLimiter.Permit permit = limits.upstream(ConcurrencyLimits.VISION).tryAcquire();
+        if (permit == null) throw limits.overloaded("Vision");
+        String text;
+        try {
+            text = metrics.visionLatency().record(() -> callVision(content));
+        } catch (RuntimeException e) {
+            permit.failure();
+            throw e;
+        }
+        permit.success();
+        cache.put(key, text);
+        return text;
+    }
+
+    private String callVision(ByteString imgBytes) {
+        try {
             Image img = Image.newBuilder().setContent(imgBytes).build();
             Feature feat = Feature.newBuilder().setType(Feature.Type.TEXT_DETECTION).build();
             AnnotateImageRequest request =
@@ -22,11 +97,32 @@ public class GoogleOcrService {
                             .setImage(img)
                             .build();
 
-            List<AnnotateImageResponse> responses = client.batchAnnotateImages(List.of(request)).getResponsesList();
-            if (responses.isEmpty()) return "";
-
-            return responses.get(0).getFullTextAnnotation().getText();
+            // Shared client; concurrent uploads are sent together in one batchAnnotateImages call
+            AnnotateImageResponse response;
+            inFlight.acquire();
+            CompletableFuture<AnnotateImageResponse> pending = batcher.submit(request);
+            try {
+                response = pending.get(batcher.callTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            } finally {
+                pending.cancel(true); // no-op once answered; otherwise the batcher skips it if not yet sent
+                inFlight.release();
+            }
+            if (response.hasError()) {
+                throw new IllegalStateException(response.getError().getMessage());
+            }
+            return response.getFullTextAnnotation().getText();
+        } catch (ExecutionException e) {
+            metrics.upstreamError("vision");
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new RuntimeException("Google OCR 호출 실패: " + cause.getMessage(), cause);
+        } catch (TimeoutException e) {
+            metrics.upstreamError("vision");
+            throw new RuntimeException("Google OCR 호출 실패: Vision 응답 시간 초과", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Google OCR 호출 실패: interrupted", e);
         } catch (Exception e) {
+            metrics.upstreamError("vision");
             throw new RuntimeException("Google OCR 호출 실패: " + e.getMessage(), e);
         }
     }
@@ -0,0 +1,230 @@
+package com.example.ocrproject.service;
+
+import com.google.protobuf.ByteString;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.*;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+/**
+ * Shrinks receipt photos before they are sent to Vision: applies the EXIF orientation, caps the longest edge,
+ * optionally converts to grayscale and re-encodes as JPEG.
+ *
+ * The upload is streamed from the multipart part; large images are subsampled while decoding so the full-size
+ * raster is never materialized. Formats ImageIO cannot decode, uploads that are malformed or truncated anywhere
+ * along the way, and results that would not be smaller than the original, fall back to sending the original
+ * bytes; Vision is left to judge those.
+ */
+@Component
+public class ImagePreprocessor {
+
+    private static final int EXIF_SCAN_LIMIT = 128 * 1024;
+
+    private final boolean enabled;
+    private final int maxEdge;
+    private final boolean grayscale;
+    private final float jpegQuality;
+
+    public ImagePreprocessor(@Value("${ocr.preprocess.enabled:true}") boolean enabled,
+                             @Value("${ocr.preprocess.max-edge:2048}") int maxEdge,
+                             @Value("${ocr.preprocess.grayscale:true}") boolean grayscale,
+                             @Value("${ocr.preprocess.jpeg-quality:0.85}") float jpegQuality) {
+        this.enabled = enabled;
+        this.maxEdge = maxEdge;
+        this.grayscale = grayscale;
+        this.jpegQuality = jpegQuality;
+    }
+
+    /** Returns the image content to send to Vision. */
+    public ByteString prepare(MultipartFile file) throws IOException {
+        if (enabled) {
+            ByteString.Output out = ByteString.newOutput();
+            boolean processed;
+            try (InputStream in = file.getInputStream()) {
+                processed = process(in, out);
+            } catch (IOException | RuntimeException e) {
+                processed = false; // broken image data; the original is sent as before pre-processing existed
+            }
+            if (processed && out.size() < file.getSize()) return out.toByteString();
+        }
+        try (InputStream in = file.getInputStream()) {
+            return ByteString.readFrom(in);
+        }
+    }
+
+    /**
+     * Decodes {@code in}, normalizes it and writes a JPEG to {@code out}.
+     * Returns false (with nothing useful written) if the image could not be decoded.
+     */
+    boolean process(InputStream in, OutputStream out) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in, 64 * 1024);
+        buffered.mark(EXIF_SCAN_LIMIT);
+        int orientation = readExifOrientation(buffered);
+        buffered.reset();
+
+        BufferedImage src = decode(buffered);
+        if (src == null) return false;
+
+        BufferedImage dst = normalize(src, orientation);
+        writeJpeg(dst, out);
+        return true;
+    }
+
+    private BufferedImage decode(InputStream in) throws IOException {
+        try (ImageInputStream iis = ImageIO.createImageInputStream(in)) {
+            if (iis == null) return null;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) return null;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                ImageReadParam param = reader.getDefaultReadParam();
+                // Decode at most ~2x the target size; the final resize below does the smooth scaling
+                int step = maxEdge > 0 ? longest / (maxEdge * 2) : 0;
+                if (step >= 2) param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } catch (IIOException | RuntimeException e) {
+                return null; // e.g. CMYK JPEG, or corrupt data some readers fail on unchecked; caller sends the original
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage normalize(BufferedImage src, int orientation) {
+        int w = src.getWidth();
+        int h = src.getHeight();
+        boolean swap = orientation >= 5 && orientation <= 8;
+        int dispW = swap ? h : w;
+        int dispH = swap ? w : h;
+
+        double scale = maxEdge > 0 ? Math.min(1.0, (double) maxEdge / Math.max(dispW, dispH)) : 1.0;
+        int outW = Math.max(1, (int) Math.round(dispW * scale));
+        int outH = Math.max(1, (int) Math.round(dispH * scale));
+
+        AffineTransform t = AffineTransform.getScaleInstance(scale, scale);
+        t.concatenate(orientationTransform(orientation, w, h));
+
+        BufferedImage dst = new BufferedImage(outW, outH, grayscale ? BufferedImage.TYPE_BYTE_GRAY : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = dst.createGraphics();
+        try {
+            g.setColor(Color.WHITE); // transparent PNG areas become paper-white, not black
+            g.fillRect(0, 0, outW, outH);
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(src, t, null);
+        } finally {
+            g.dispose();
+        }
+        return dst;
+    }
+
+    // Maps source pixel coordinates to display coordinates for EXIF orientations 1..8
+    private static AffineTransform orientationTransform(int orientation, int w, int h) {
+        return switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, w, 0);
+            case 3 -> new AffineTransform(-1, 0, 0, -1, w, h);
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, h);
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);
+            case 6 -> new AffineTransform(0, 1, -1, 0, h, 0);
+            case 7 -> new AffineTransform(0, -1, -1, 0, h, w);
+            case 8 -> new AffineTransform(0, -1, 1, 0, 0, w);
+            default -> new AffineTransform();
+        };
+    }
+
+    private void writeJpeg(BufferedImage img, OutputStream out) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.write(null, new IIOImage(img, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Reads the orientation tag (0x0112) from a JPEG's Exif APP1 segment. Returns 1 when the stream is not a JPEG,
+     * carries no Exif data, the tag is missing, or the data is malformed or truncated. Reads at most
+     * {@link #EXIF_SCAN_LIMIT} bytes.
+     */
+    static int readExifOrientation(InputStream in) throws IOException {
+        try {
+            return scanForOrientation(in);
+        } catch (EOFException e) {
+            return 1;
+        }
+    }
+
+    private static int scanForOrientation(InputStream in) throws IOException {
+        if (in.read() != 0xFF || in.read() != 0xD8) return 1;
+        long consumed = 2;
+        while (consumed < EXIF_SCAN_LIMIT) {
+            int b = in.read();
+            if (b != 0xFF) return 1;
+            int marker = in.read();
+            while (marker == 0xFF) marker = in.read(); // fill bytes
+            if (marker < 0 || marker == 0xDA || marker == 0xD9) return 1; // start of scan / end of image
+            int len = (in.read() << 8) | in.read();
+            if (len < 2) return 1;
+            consumed += 4;
+            if (consumed + len - 2 > EXIF_SCAN_LIMIT) return 1;
+            if (marker == 0xE1) {
+                byte[] seg = in.readNBytes(len - 2);
+                int o = orientationFromApp1(seg);
+                if (o > 0) return o;
+            } else {
+                in.skipNBytes(len - 2);
+            }
+            consumed += len - 2;
+        }
+        return 1;
+    }
+
+    private static int orientationFromApp1(byte[] seg) {
+        if (seg.length < 14 || seg[0] != 'E' || seg[1] != 'x' || seg[2] != 'i' || seg[3] != 'f') return 0;
+        int tiff = 6;
+        boolean little = seg[tiff] == 'I';
+        // IFD0 starts after the 8-byte TIFF header; the offset is unsigned and may point anywhere in corrupt data
+        long offset = readInt(seg, tiff + 4, little) & 0xFFFFFFFFL;
+        if (offset < 8 || tiff + offset + 2 > seg.length) return 0;
+        int ifd = tiff + (int) offset;
+        int entries = readShort(seg, ifd, little);
+        for (int i = 0; i < entries; i++) {
+            int e = ifd + 2 + i * 12;
+            if (e + 12 > seg.length) return 0;
+            if (readShort(seg, e, little) == 0x0112) {
+                int v = readShort(seg, e + 8, little);
+                return v >= 1 && v <= 8 ? v : 1;
+            }
+        }
+        return 0;
+    }
+
+    private static int readShort(byte[] b, int off, boolean little) {
+        int b0 = b[off] & 0xFF, b1 = b[off + 1] & 0xFF;
+        return little ? (b1 << 8) | b0 : (b0 << 8) | b1;
+    }
+
+    private static int readInt(byte[] b, int off, boolean little) {
+        return little
+                ? readShort(b, off, true) | (readShort(b, off + 2, true) << 16)
+                : (readShort(b, off, false) << 16) | readShort(b, off + 2, false);
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.ocrproject.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Turns OCR text into an ingredient list. {@code ocr.extraction.mode} selects the strategy:
+ * <ul>
+ *   <li>{@code gemini} (default) - the whole text goes to Gemini, the lexicon is only the failure fallback</li>
+ *   <li>{@code tiered} - each line is classified locally first: prices, totals and store headers are dropped,
+ *       lines fully covered by {@link IngredientLexicon} aliases are resolved on the spot, and only the remaining
+ *       lines are sent to Gemini. Receipts from known chains usually skip Gemini entirely.</li>
+ *   <li>{@code local} - lexicon only, Gemini is never called</li>
+ * </ul>
+ * While the Gemini circuit breaker is open the other modes behave like {@code local} instead of waiting for
+ * each call to fail; calls shed by the Gemini concurrency limit fall back to the lexicon the same way.
+ */
+@Service
+public class IngredientExtractor {
+
+    public enum Mode { GEMINI, TIERED, LOCAL }
+
+    /** Ingredients plus how the receipt lines were handled for this request. */
+    public record Extraction(List<String> ingredients, int localLines, int remoteLines, int skippedLines) {
+        public Map<String, Integer> lines() {
+            return Map.of("local", localLines, "remote", remoteLines, "skipped", skippedLines);
+        }
+    }
+
+    private record Plan(List<String> local, List<String> remote, int localLines, int skippedLines) {}
+
+    // 영수증 머리글/합계/결제 줄: 줄이 이 단어로 시작할 때만 (라벨 위치). 품목명 안에 들어간 경우("라면세트"의 "면세",
+    // "사과세트"의 "과세", "삼겹살 할인")는 재료 줄이다
+    private static final List<String> NOISE_LABELS = List.of(
+            "합계", "총액", "총금액", "부가세", "과세", "면세", "결제", "카드", "현금", "거스름", "받은금액", "영수증",
+            "사업자", "대표", "전화", "주소", "승인", "일시", "포인트", "할인", "매출", "계산대", "주문번호", "교환",
+            "환불", "감사합니다", "품명", "수량", "단가", "금액", "홈플러스", "코스트코");
+    // 매장/카드사 이름 끝말: 어느 단어든 이것으로 끝나면 머리글/결제 줄 ("이마트 성수점", "GS25 편의점", "신한카드 승인")
+    private static final List<String> NOISE_SUFFIXES = List.of("마트", "편의점", "카드");
+    private static final Pattern LEADING_SYMBOLS = Pattern.compile("^[^\\p{IsHangul}A-Za-z0-9]+");
+    private static final Pattern WORD_BREAK = Pattern.compile("[^\\p{IsHangul}A-Za-z0-9]+");
+    private static final Pattern NOISE_EN = Pattern.compile("(?i)\\b(tel|pos|total|subtotal|vat|card|cash)\\b");
+    // 재료 옆에 붙어도 판별에 영향 없는 단어 (단위, 원산지, 수식어)
+    private static final Set<String> IGNORABLE = Set.of(
+            "kg", "g", "ml", "l", "ea", "x", "pk", "개", "구", "입", "개입", "팩", "봉", "봉지", "병", "캔", "단", "망",
+            "통", "묶음", "국산", "국내산", "수입", "미국산", "호주산", "유기농", "무농약", "친환경", "신선", "냉장", "냉동",
+            "특", "대", "중", "소", "행사", "할인", "세트");
+    private static final Pattern NO_LETTERS = Pattern.compile("[^\\p{IsHangul}A-Za-z]*");
+
+    private final GeminiService geminiService;
+    private final IngredientLexicon lexicon;
+    private final PipelineMetrics metrics;
+    private final Mode mode;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong geminiRequests = new AtomicLong();
+    private final AtomicLong localLines = new AtomicLong();
+    private final AtomicLong remoteLines = new AtomicLong();
+    private final AtomicLong skippedLines = new AtomicLong();
+    private final AtomicLong breakerSkips = new AtomicLong();
+
+    public IngredientExtractor(GeminiService geminiService, IngredientLexicon lexicon, PipelineMetrics metrics,
+                               @Value("${ocr.extraction.mode:gemini}") String mode) {
+        this.geminiService = geminiService;
+        this.lexicon = lexicon;
+        this.metrics = metrics;
+        this.mode = Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+    }
+
+    public Extraction extract(String ocrText) {
+        return extractAsync(ocrText, null).join();
+    }
+
+    /**
+     * Cancelling the returned future cancels the Gemini call behind it.
+     *
+     * @param onPartial if non-null, Gemini is streamed and this receives the growing ingredient list
+     *                  (locally resolved items first, then each completed Gemini item)
+     */
+    public CompletableFuture<Extraction> extractAsync(String ocrText, Consumer<List<String>> onPartial) {
+        requests.incrementAndGet();
+        Plan plan = plan(ocrText);
+        if (plan.remote().isEmpty()) {
+            return CompletableFuture.completedFuture(record(plan, plan.local(), 0));
+        }
+        String residual = mode == Mode.GEMINI ? ocrText : String.join("\n", plan.remote());
+        boolean geminiDown = mode != Mode.LOCAL && !geminiService.isAvailable();
+        if (mode == Mode.LOCAL || geminiDown) {
+            if (geminiDown) {
+                breakerSkips.incrementAndGet();
+                metrics.extractionFallbacks().increment();
+            }
+            // Unresolved lines still contribute whatever aliases they contain
+            return CompletableFuture.completedFuture(record(plan, merge(plan.local(), lexicon.extract(residual)), 0));
+        }
+        int remoteCount = plan.remote().size();
+
+        geminiRequests.incrementAndGet();
+        CompletableFuture<String> call;
+        if (onPartial == null) {
+            call = geminiService.extractItemsFromTextAsync(residual);
+        } else {
+            if (!plan.local().isEmpty()) onPartial.accept(plan.local());
+            int[] emitted = {plan.local().size()};
+            call = geminiService.streamItemsFromTextAsync(residual, partial -> {
+                // Only items followed by a separator are complete; the tail may still be growing
+                int cut = Math.max(partial.lastIndexOf(','), partial.lastIndexOf('\n'));
+                if (cut < 0) return;
+                List<String> items = merge(plan.local(), parseCommaSeparated(partial.substring(0, cut)));
+                if (items.size() > emitted[0]) {
+                    emitted[0] = items.size();
+                    onPartial.accept(items);
+                }
+            });
+        }
+        CompletableFuture<Extraction> result = call.thenApply(IngredientExtractor::parseCommaSeparated)
+                .exceptionally(e -> {
+                    // Gemini failed or not configured
+                    metrics.extractionFallbacks().increment();
+                    return lexicon.extract(residual);
+                })
+                .thenApply(remote -> record(plan, merge(plan.local(), remote), remoteCount));
+        result.whenComplete((v, e) -> {
+            if (result.isCancelled()) call.cancel(true); // the caller went away; so can the Gemini call
+        });
+        return result;
+    }
+
+    private Plan plan(String ocrText) {
+        if (ocrText == null || ocrText.isBlank()) return new Plan(List.of(), List.of(), 0, 0);
+        List<String> lines = ocrText.lines().map(String::trim).filter(l -> !l.isEmpty()).toList();
+        if (mode == Mode.GEMINI) return new Plan(List.of(), lines, 0, 0);
+
+        Set<String> local = new LinkedHashSet<>();
+        List<String> remote = new ArrayList<>();
+        int resolved = 0, skipped = 0;
+        for (String line : lines) {
+            if (isNoise(line)) {
+                skipped++;
+                continue;
+            }
+            List<IngredientLexicon.Match> matches = lexicon.find(line);
+            if (!matches.isEmpty() && onlyIgnorableLeft(line, matches)) {
+                for (IngredientLexicon.Match m : matches) local.add(m.ingredient().ko());
+                resolved++;
+            } else {
+                remote.add(line);
+            }
+        }
+        return new Plan(new ArrayList<>(local), remote, resolved, skipped);
+    }
+
+    static boolean isNoise(String line) {
+        if (NO_LETTERS.matcher(line).matches()) return true; // prices, dates, barcodes
+        if (NOISE_EN.matcher(line).find()) return true;
+        // OCR often spaces out label characters ("부 가 세"), so the label check ignores spaces
+        String compact = LEADING_SYMBOLS.matcher(line.replace(" ", "")).replaceFirst("");
+        for (String w : NOISE_LABELS) {
+            if (compact.startsWith(w)) return true;
+        }
+        for (String word : WORD_BREAK.split(line)) {
+            for (String w : NOISE_SUFFIXES) {
+                if (word.endsWith(w)) return true;
+            }
+        }
+        return false;
+    }
+
+    /** True when every letter run outside the matched aliases is a unit, origin or qualifier word. */
+    private static boolean onlyIgnorableLeft(String line, List<IngredientLexicon.Match> matches) {
+        StringBuilder rest = new StringBuilder(line.length());
+        int pos = 0;
+        for (IngredientLexicon.Match m : matches) {
+            rest.append(line, pos, m.start()).append(' ');
+            pos = m.end();
+        }
+        rest.append(line, pos, line.length());
+        for (String token : rest.toString().toLowerCase(Locale.ROOT).split("[^\\p{IsHangul}a-z]+")) {
+            if (!token.isEmpty() && !IGNORABLE.contains(token)) return false;
+        }
+        return true;
+    }
+
+    private Extraction record(Plan plan, List<String> ingredients, int remoteCount) {
+        localLines.addAndGet(plan.localLines());
+        remoteLines.addAndGet(remoteCount);
+        skippedLines.addAndGet(plan.skippedLines());
+        return new Extraction(ingredients, plan.localLines(), remoteCount, plan.skippedLines());
+    }
+
+    private static List<String> merge(List<String> first, List<String> second) {
+        List<String> all = new ArrayList<>(first);
+        all.addAll(second);
+        return dedupLowerPreserve(all);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("mode", mode.name().toLowerCase(Locale.ROOT));
+        out.put("requests", requests.get());
+        out.put("geminiRequests", geminiRequests.get());
+        out.put("localLines", localLines.get());
+        out.put("remoteLines", remoteLines.get());
+        out.put("skippedLines", skippedLines.get());
+        out.put("breakerSkips", breakerSkips.get());
+        return out;
+    }
+
+    static List<String> parseCommaSeparated(String text) {
+        if (text == null) return List.of();
+        String cleaned = text.replaceAll("[\n\r]+", ",");
+        String[] parts = cleaned.split(",");
+        List<String> out = new ArrayList<>();
+        for (String p : parts) {
+            String s = p.trim();
+            if (!s.isEmpty()) out.add(s);
+        }
+        return dedupLowerPreserve(out);
+    }
+
+    static List<String> dedupLowerPreserve(List<String> input) {
+        LinkedHashMap<String, String> map = new LinkedHashMap<>();
+        for (String s : input) {
+            map.putIfAbsent(s.toLowerCase(), s);
+        }
+        return new ArrayList<>(map.values());
+    }
+}
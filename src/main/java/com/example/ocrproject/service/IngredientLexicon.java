@@ -0,0 +1,237 @@
+package com.example.ocrproject.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Shared ingredient lexicon: canonical ids with a Korean display name, the TheMealDB English name and any
+ * number of aliases (spellings, brand/product words, common OCR misreads).
+ *
+ * All aliases are compiled into one Aho-Corasick automaton, so {@link #find} scans OCR text once no matter how
+ * large the lexicon grows. The lexicon comes from {@code ocr.lexicon.path} (TSV, see lexicon/ingredients.tsv)
+ * or the bundled resource, and the file is re-read every {@code ocr.lexicon.reload-interval} when it changed.
+ */
+@Component
+public class IngredientLexicon {
+
+    public record Ingredient(String id, String ko, String en) {}
+
+    public record Match(Ingredient ingredient, int start, int end) {}
+
+    record Entry(Ingredient ingredient, List<String> aliases) {}
+
+    static final String DEFAULT_RESOURCE = "lexicon/ingredients.tsv";
+
+    private final String path;
+    private volatile Automaton automaton;
+    private long loadedModified = -1;
+
+    public IngredientLexicon(@Value("${ocr.lexicon.path:}") String path) {
+        this.path = path;
+        if (path == null || path.isBlank()) {
+            InputStream in = IngredientLexicon.class.getClassLoader().getResourceAsStream(DEFAULT_RESOURCE);
+            if (in == null) throw new IllegalStateException("Missing ingredient lexicon: " + DEFAULT_RESOURCE);
+            try (BufferedReader r = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+                this.automaton = new Automaton(parse(r));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } else {
+            reload();
+        }
+    }
+
+    IngredientLexicon(List<Entry> entries) {
+        this.path = null;
+        this.automaton = new Automaton(entries);
+    }
+
+    /** Re-reads {@code ocr.lexicon.path} if it changed; requests keep using the previous automaton until the swap. */
+    @Scheduled(fixedDelayString = "${ocr.lexicon.reload-interval:PT1M}")
+    public synchronized void reload() {
+        if (path == null || path.isBlank()) return;
+        Path file = Path.of(path);
+        try {
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            if (modified == loadedModified) return;
+            try (BufferedReader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                automaton = new Automaton(parse(r));
+            }
+            loadedModified = modified;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ingredient lexicon load failed: " + path, e);
+        }
+    }
+
+    public int size() {
+        return automaton.ingredients;
+    }
+
+    /** Distinct Korean ingredient names in order of first appearance. */
+    public List<String> extract(String text) {
+        Set<String> found = new LinkedHashSet<>();
+        for (Match m : find(text)) found.add(m.ingredient().ko());
+        return new ArrayList<>(found);
+    }
+
+    /** Leftmost-longest, non-overlapping alias matches ("대파" wins over the "파" inside it). */
+    public List<Match> find(String text) {
+        if (text == null || text.isEmpty()) return List.of();
+        return automaton.find(text);
+    }
+
+    /** Exact alias lookup (trimmed, case-insensitive). */
+    public Ingredient lookup(String alias) {
+        return alias == null ? null : automaton.byAlias.get(alias.trim().toLowerCase(Locale.ROOT));
+    }
+
+    /** TheMealDB query name for an ingredient, or the input unchanged if it is not in the lexicon. */
+    public String english(String raw) {
+        Ingredient ing = lookup(raw);
+        return ing == null ? raw : ing.en();
+    }
+
+    static List<Entry> parse(BufferedReader r) throws IOException {
+        List<Entry> out = new ArrayList<>();
+        String line;
+        while ((line = r.readLine()) != null) {
+            if (line.isBlank() || line.startsWith("#")) continue;
+            String[] cols = line.split("\t");
+            if (cols.length < 3) continue;
+            Ingredient ing = new Ingredient(cols[0].trim(), cols[1].trim(), cols[2].trim());
+            List<String> aliases = new ArrayList<>(List.of(ing.ko(), ing.en()));
+            if (cols.length > 3) {
+                for (String a : cols[3].split(",")) {
+                    if (!a.isBlank()) aliases.add(a.trim());
+                }
+            }
+            out.add(new Entry(ing, aliases));
+        }
+        return out;
+    }
+
+    private static final class Automaton {
+        final Map<String, Ingredient> byAlias = new HashMap<>();
+        final int ingredients;
+        final List<Map<Character, Integer>> next = new ArrayList<>();
+        final List<Integer> depthList = new ArrayList<>();
+        final List<Ingredient> outList = new ArrayList<>();
+        final List<Boolean> asciiList = new ArrayList<>();
+        int[] fail;
+        int[] dict;   // nearest proper suffix state that ends an alias, 0 if none
+        int[] depth;
+        Ingredient[] out;
+        boolean[] ascii;
+
+        Automaton(List<Entry> entries) {
+            ingredients = entries.size();
+            newState(0);
+            for (Entry e : entries) {
+                for (String alias : e.aliases()) {
+                    String key = alias.toLowerCase(Locale.ROOT);
+                    if (byAlias.putIfAbsent(key, e.ingredient()) != null) continue; // first definition wins
+                    int s = 0;
+                    for (int i = 0; i < key.length(); i++) {
+                        Integer t = next.get(s).get(key.charAt(i));
+                        if (t == null) {
+                            t = newState(i + 1);
+                            next.get(s).put(key.charAt(i), t);
+                        }
+                        s = t;
+                    }
+                    outList.set(s, e.ingredient());
+                    asciiList.set(s, isAscii(key));
+                }
+            }
+            int n = next.size();
+            depth = new int[n];
+            out = new Ingredient[n];
+            ascii = new boolean[n];
+            for (int i = 0; i < n; i++) {
+                depth[i] = depthList.get(i);
+                out[i] = outList.get(i);
+                ascii[i] = asciiList.get(i);
+            }
+            fail = new int[n];
+            dict = new int[n];
+            ArrayDeque<Integer> queue = new ArrayDeque<>();
+            for (int child : next.get(0).values()) queue.add(child);
+            while (!queue.isEmpty()) {
+                int u = queue.poll();
+                for (Map.Entry<Character, Integer> edge : next.get(u).entrySet()) {
+                    int v = edge.getValue();
+                    fail[v] = step(fail[u], edge.getKey(), u == 0);
+                    dict[v] = out[fail[v]] != null ? fail[v] : dict[fail[v]];
+                    queue.add(v);
+                }
+            }
+        }
+
+        private int newState(int d) {
+            next.add(new HashMap<>());
+            depthList.add(d);
+            outList.add(null);
+            asciiList.add(false);
+            return next.size() - 1;
+        }
+
+        private int step(int s, char c, boolean fromRoot) {
+            if (fromRoot) return 0;
+            while (true) {
+                Integer t = next.get(s).get(c);
+                if (t != null) return t;
+                if (s == 0) return 0;
+                s = fail[s];
+            }
+        }
+
+        List<Match> find(String text) {
+            // Candidates packed as {start, end, state}; text is scanned once
+            List<int[]> hits = new ArrayList<>();
+            int s = 0;
+            for (int i = 0; i < text.length(); i++) {
+                char c = Character.toLowerCase(text.charAt(i));
+                s = step(s, c, false);
+                for (int m = out[s] != null ? s : dict[s]; m != 0; m = dict[m]) {
+                    int start = i + 1 - depth[m];
+                    if (ascii[m] && !(isBoundary(text, start - 1) && isBoundary(text, i + 1))) continue;
+                    hits.add(new int[]{start, i + 1, m});
+                }
+            }
+            if (hits.isEmpty()) return List.of();
+            hits.sort((a, b) -> a[0] != b[0] ? Integer.compare(a[0], b[0]) : Integer.compare(b[1], a[1]));
+            List<Match> result = new ArrayList<>();
+            int covered = 0;
+            for (int[] h : hits) {
+                if (h[0] < covered) continue;
+                result.add(new Match(out[h[2]], h[0], h[1]));
+                covered = h[1];
+            }
+            return result;
+        }
+
+        private static boolean isBoundary(String text, int i) {
+            if (i < 0 || i >= text.length()) return true;
+            char c = text.charAt(i);
+            return !(c < 128 && Character.isLetter(c));
+        }
+
+        private static boolean isAscii(String s) {
+            for (int i = 0; i < s.length(); i++) {
+                if (s.charAt(i) >= 128) return false;
+            }
+            return true;
+        }
+    }
+}
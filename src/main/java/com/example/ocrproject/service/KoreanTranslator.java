@@ -0,0 +1,134 @@
+package com.example.ocrproject.service;
+
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Dictionary-based English -> Korean term translator for UI-only localization of TheMealDB data.
+ *
+ * The dictionary (translations/en-ko.tsv) is compiled once into a character trie. {@link #translate} makes a
+ * single left-to-right pass: at every word start it follows the trie case-insensitively and replaces the
+ * longest entry that also ends on a word boundary, so "sesame oil" wins over "oil" regardless of file order.
+ * Strings without any match are returned as-is without copying.
+ */
+@Component
+public class KoreanTranslator {
+
+    static final String DEFAULT_RESOURCE = "translations/en-ko.tsv";
+
+    private static final class Node {
+        final Map<Character, Node> next = new HashMap<>();
+        String replacement;
+    }
+
+    private final Node root = new Node();
+    private final String digest;
+
+    public KoreanTranslator() {
+        this(load(DEFAULT_RESOURCE));
+    }
+
+    KoreanTranslator(Map<String, String> dictionary) {
+        dictionary.forEach((term, ko) -> {
+            Node n = root;
+            for (int i = 0; i < term.length(); i++) {
+                n = n.next.computeIfAbsent(Character.toLowerCase(term.charAt(i)), c -> new Node());
+            }
+            n.replacement = ko;
+        });
+        this.digest = digest(dictionary);
+    }
+
+    /**
+     * SHA-256 of the dictionary entries, independent of file order. Output stored from {@link #translate} is
+     * stale once this changes.
+     */
+    public String digest() {
+        return digest;
+    }
+
+    private static String digest(Map<String, String> dictionary) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            new TreeMap<>(dictionary).forEach((term, ko) ->
+                    md.update((term + '\t' + ko + '\n').getBytes(StandardCharsets.UTF_8)));
+            return HexFormat.of().formatHex(md.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static Map<String, String> load(String resource) {
+        Map<String, String> out = new LinkedHashMap<>();
+        InputStream in = KoreanTranslator.class.getClassLoader().getResourceAsStream(resource);
+        if (in == null) throw new IllegalStateException("Missing translation dictionary: " + resource);
+        try (BufferedReader r = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) continue;
+                int tab = line.indexOf('\t');
+                if (tab <= 0) continue;
+                out.put(line.substring(0, tab).trim(), line.substring(tab + 1).trim());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out;
+    }
+
+    public String translate(String s) {
+        if (s == null || s.isBlank()) return s;
+        StringBuilder out = null;
+        int copied = 0; // s[copied, i) still needs to be appended to out
+        int i = 0;
+        int len = s.length();
+        while (i < len) {
+            if (i > 0 && isWordChar(s.charAt(i - 1)) || !isWordChar(s.charAt(i))) {
+                i++;
+                continue;
+            }
+            // Longest dictionary entry starting at this word boundary and ending on one
+            Node n = root;
+            String replacement = null;
+            int end = -1;
+            for (int j = i; j < len; j++) {
+                n = n.next.get(Character.toLowerCase(s.charAt(j)));
+                if (n == null) break;
+                if (n.replacement != null && (j + 1 == len || !isWordChar(s.charAt(j + 1)))) {
+                    replacement = n.replacement;
+                    end = j + 1;
+                }
+            }
+            if (replacement == null) {
+                i++;
+                continue;
+            }
+            if (out == null) out = new StringBuilder(len + 16);
+            out.append(s, copied, i).append(replacement);
+            copied = i = end;
+        }
+        if (out == null) return s;
+        return out.append(s, copied, len).toString();
+    }
+
+    public List<String> translateAll(List<String> list) {
+        if (list == null) return null;
+        List<String> out = new ArrayList<>(list.size());
+        for (String s : list) out.add(translate(s));
+        return out;
+    }
+
+    // Same word characters as the regex \b the old replaceAll chain used
+    private static boolean isWordChar(char c) {
+        return c == '_' || (c < 128 && Character.isLetterOrDigit(c));
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.ocrproject.service;
+
+import com.example.ocrproject.dto.RecipeSuggestion;
+import com.example.ocrproject.entity.Meal;
+import com.example.ocrproject.repository.MealRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.*;
+
+/**
+ * Offline TheMealDB mirror. A TheMealDB-format dump ({"meals":[{idMeal, strMeal, strIngredient1..20, ...}]})
+ * is imported into the meal / meal_ingredient tables with Korean names and ingredient lines precomputed,
+ * and an in-memory ingredient -> meal id index is rebuilt from the tables after every import.
+ *
+ * The import runs at startup and again every {@code recipe.mirror.refresh-interval} when the dump file has
+ * changed; only meals whose source JSON or translation dictionary changed are rewritten. Readers see the previous
+ * index until the new one is swapped in. A full import can take a while, so the scheduler has a thread per job
+ * ({@code spring.task.scheduling.pool.size}) and the catalog and lexicon reloads do not wait behind it.
+ */
+@Service
+public class MealMirrorService {
+
+    private record Snapshot(Map<String, RecipeSuggestion> meals, Map<String, List<String>> postings) {}
+
+    private final MealRepository repository;
+    private final KoreanTranslator translator;
+    private final String dumpPath;
+    private final ObjectMapper om = new ObjectMapper();
+
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), Map.of());
+    private long importedModified = -1;
+
+    public MealMirrorService(MealRepository repository, KoreanTranslator translator,
+                             @Value("${recipe.mirror.dump:}") String dumpPath) {
+        this.repository = repository;
+        this.translator = translator;
+        this.dumpPath = dumpPath;
+    }
+
+    public boolean isReady() {
+        return !snapshot.meals().isEmpty();
+    }
+
+    /** Meal ids using the ingredient, matching TheMealDB filter.php (whole name, case-insensitive). */
+    public List<String> mealIdsFor(String ingredient) {
+        return snapshot.postings().getOrDefault(ingredientKey(ingredient), List.of());
+    }
+
+    public RecipeSuggestion meal(String id) {
+        return snapshot.meals().get(id);
+    }
+
+    /** English instructions of every mirrored meal, for background pre-translation. */
+    public List<String> instructions() {
+        List<String> out = new ArrayList<>();
+        for (RecipeSuggestion r : snapshot.meals().values()) {
+            if (r.desc() != null && !r.desc().isBlank()) out.add(r.desc());
+        }
+        return out;
+    }
+
+    static String ingredientKey(String s) {
+        return s == null ? "" : s.trim().toLowerCase(Locale.ROOT).replace('_', ' ');
+    }
+
+    @Scheduled(fixedDelayString = "${recipe.mirror.refresh-interval:PT6H}")
+    @Transactional
+    public synchronized void refresh() {
+        if (dumpPath == null || dumpPath.isBlank()) return;
+        Path dump = Path.of(dumpPath);
+        try {
+            if (!Files.isRegularFile(dump)) return;
+            long modified = Files.getLastModifiedTime(dump).toMillis();
+            if (modified == importedModified) return;
+            importDump(dump);
+            importedModified = modified;
+        } catch (Exception e) {
+            throw new RuntimeException("TheMealDB dump import failed: " + e.getMessage(), e);
+        }
+        rebuildIndex();
+    }
+
+    private void importDump(Path dump) throws Exception {
+        JsonNode meals = om.readTree(dump.toFile()).path("meals");
+        if (!meals.isArray()) return;
+
+        Map<String, Meal> existing = new HashMap<>();
+        for (Meal m : repository.findAll()) existing.put(m.getId(), m);
+
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        List<Meal> changed = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (JsonNode node : meals) {
+            String id = node.path("idMeal").asText(null);
+            if (id == null) continue;
+            seen.add(id);
+            // The Korean fields are derived from the dictionary too, so a new dictionary rewrites every meal
+            md.update(translator.digest().getBytes(StandardCharsets.UTF_8));
+            String hash = HexFormat.of().formatHex(md.digest(node.toString().getBytes(StandardCharsets.UTF_8)));
+            Meal meal = existing.get(id);
+            if (meal != null && hash.equals(meal.getSourceHash())) continue;
+            if (meal == null) {
+                meal = new Meal();
+                meal.setId(id);
+            }
+            fill(meal, node);
+            meal.setSourceHash(hash);
+            changed.add(meal);
+        }
+        repository.saveAll(changed);
+
+        List<String> removed = existing.keySet().stream().filter(id -> !seen.contains(id)).toList();
+        repository.deleteAllById(removed);
+    }
+
+    private void fill(Meal meal, JsonNode node) {
+        String name = optText(node, "strMeal");
+        List<String> need = new ArrayList<>();
+        Set<String> keys = new HashSet<>();
+        for (int i = 1; i <= 20; i++) {
+            String ing = optText(node, "strIngredient" + i);
+            String measure = optText(node, "strMeasure" + i);
+            if (ing == null || ing.isBlank()) continue;
+            keys.add(ingredientKey(ing));
+            need.add((measure != null && !measure.isBlank() ? ing + " " + measure : ing).trim());
+        }
+        meal.setName(name);
+        meal.setNameKo(translator.translate(name));
+        meal.setInstructions(optText(node, "strInstructions"));
+        meal.setNeedKo(String.join("\n", translator.translateAll(need)));
+        meal.setIngredients(keys);
+    }
+
+    private void rebuildIndex() {
+        Map<String, RecipeSuggestion> meals = new HashMap<>();
+        Map<String, List<String>> postings = new HashMap<>();
+        List<Meal> all = new ArrayList<>(repository.findAll());
+        all.sort(Comparator.comparing(Meal::getId)); // stable posting order across refreshes
+        for (Meal m : all) {
+            List<String> needKo = m.getNeedKo() == null || m.getNeedKo().isEmpty()
+                    ? List.of() : List.of(m.getNeedKo().split("\n"));
+            meals.put(m.getId(), new RecipeSuggestion(m.getNameKo(), needKo, m.getInstructions(), 0));
+            for (String key : m.getIngredients()) {
+                postings.computeIfAbsent(key, k -> new ArrayList<>()).add(m.getId());
+            }
+        }
+        postings.replaceAll((k, v) -> List.copyOf(v));
+        snapshot = new Snapshot(Map.copyOf(meals), Map.copyOf(postings));
+    }
+
+    private static String optText(JsonNode node, String field) {
+        JsonNode v = node.get(field);
+        return (v == null || v.isNull()) ? null : v.asText();
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.ocrproject.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * OCR text cache keyed by the SHA-256 of the uploaded image bytes.
+ *
+ * Memory tier is a size/TTL bounded Caffeine cache (W-TinyLFU eviction). If {@code ocr.cache.disk-dir} is set,
+ * results are also written there as one file per digest so they survive restarts; entries older than the TTL
+ * are ignored. The directory is swept every {@code ocr.cache.disk-sweep-interval}, and as soon as writes take it
+ * past {@code ocr.cache.disk-max-bytes}: expired files are deleted, then the oldest ones until it is back under
+ * 90% of the limit. A sweep started by a write runs on its own daemon thread, never on the request thread.
+ */
+@Component
+public class OcrResultCache {
+
+    private final Cache<String, String> memory;
+    private final Path diskDir;
+    private final Duration ttl;
+    private final long diskMaxBytes;
+    private final Executor sweeper;
+
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong diskBytes = new AtomicLong(); // as of the last sweep, plus writes since
+    private final AtomicLong diskFiles = new AtomicLong();
+    private final AtomicLong diskDeleted = new AtomicLong();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    @Autowired
+    public OcrResultCache(@Value("${ocr.cache.max-entries:1000}") long maxEntries,
+                          @Value("${ocr.cache.ttl:24h}") Duration ttl,
+                          @Value("${ocr.cache.disk-dir:}") String diskDir,
+                          @Value("${ocr.cache.disk-max-bytes:256MB}") DataSize diskMaxBytes) {
+        this(maxEntries, ttl, diskDir, diskMaxBytes.toBytes());
+    }
+
+    OcrResultCache(long maxEntries, Duration ttl, String diskDir, long diskMaxBytes) {
+        this(maxEntries, ttl, diskDir, diskMaxBytes, OcrResultCache::sweepThread);
+    }
+
+    OcrResultCache(long maxEntries, Duration ttl, String diskDir, long diskMaxBytes, Executor sweeper) {
+        this.ttl = ttl;
+        this.diskMaxBytes = diskMaxBytes;
+        this.sweeper = sweeper;
+        this.memory = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.diskDir = diskDir == null || diskDir.isBlank() ? null : Path.of(diskDir);
+    }
+
+    /** Digests the stream in fixed-size chunks so the upload is never copied onto the heap in full. */
+    public static String key(InputStream in) throws IOException {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buf = new byte[8192];
+        int n;
+        while ((n = in.read(buf)) > 0) md.update(buf, 0, n);
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    /** Returns the cached OCR text for the digest, or null if neither tier has a live entry. */
+    public String get(String key) {
+        String text = memory.getIfPresent(key);
+        if (text != null) return text;
+
+        text = readDisk(key);
+        if (text != null) {
+            diskHits.incrementAndGet();
+            memory.put(key, text);
+            return text;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(String key, String text) {
+        if (text == null) return;
+        memory.put(key, text);
+        writeDisk(key, text);
+    }
+
+    public Map<String, Long> stats() {
+        Map<String, Long> m = new LinkedHashMap<>();
+        m.put("memoryHits", memory.stats().hitCount());
+        m.put("diskHits", diskHits.get());
+        m.put("misses", misses.get());
+        m.put("evictions", memory.stats().evictionCount());
+        m.put("size", memory.estimatedSize());
+        m.put("diskFiles", diskFiles.get());
+        m.put("diskBytes", diskBytes.get());
+        m.put("diskDeleted", diskDeleted.get());
+        return m;
+    }
+
+    /** Deletes expired disk entries, then the oldest ones while the directory is over its size limit. */
+    @Scheduled(fixedDelayString = "${ocr.cache.disk-sweep-interval:PT10M}")
+    public void sweep() {
+        if (diskDir == null || !sweeping.compareAndSet(false, true)) return;
+        try {
+            record Entry(Path file, long modified, long size) {}
+            List<Entry> live = new ArrayList<>();
+            long now = System.currentTimeMillis();
+            try (Stream<Path> files = Files.list(diskDir)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    String name = file.getFileName().toString();
+                    boolean tmp = name.endsWith(".tmp");
+                    if (!tmp && !name.endsWith(".txt")) continue;
+                    try {
+                        long modified = Files.getLastModifiedTime(file).toMillis();
+                        // A .tmp file older than a minute is left over from a write that failed
+                        if (now - modified > (tmp ? 60_000 : ttl.toMillis())) {
+                            delete(file);
+                        } else if (!tmp) {
+                            live.add(new Entry(file, modified, Files.size(file)));
+                        }
+                    } catch (IOException e) {
+                        // removed concurrently
+                    }
+                }
+            } catch (NoSuchFileException e) {
+                // nothing written yet
+            } catch (IOException e) {
+                return; // disk tier is best-effort
+            }
+
+            long total = live.stream().mapToLong(Entry::size).sum();
+            int count = live.size();
+            if (total > diskMaxBytes) {
+                live.sort(Comparator.comparingLong(Entry::modified));
+                long target = diskMaxBytes / 10 * 9;
+                for (Entry e : live) {
+                    if (total <= target) break;
+                    delete(e.file());
+                    total -= e.size();
+                    count--;
+                }
+            }
+            diskBytes.set(total);
+            diskFiles.set(count);
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    private void delete(Path file) {
+        try {
+            if (Files.deleteIfExists(file)) diskDeleted.incrementAndGet();
+        } catch (IOException ignored) {
+            // retried on the next sweep
+        }
+    }
+
+    private String readDisk(String key) {
+        if (diskDir == null) return null;
+        Path file = diskDir.resolve(key + ".txt");
+        try {
+            if (!Files.isRegularFile(file)) return null;
+            long age = System.currentTimeMillis() - Files.getLastModifiedTime(file).toMillis();
+            if (age > ttl.toMillis()) {
+                delete(file);
+                return null;
+            }
+            return Files.readString(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return null; // disk tier is best-effort
+        }
+    }
+
+    private void writeDisk(String key, String text) {
+        if (diskDir == null) return;
+        Path file = diskDir.resolve(key + ".txt");
+        long replaced; // size of the entry this write overwrites, -1 if it is new
+        long written;
+        try {
+            Files.createDirectories(diskDir);
+            Path tmp = Files.createTempFile(diskDir, key, ".tmp");
+            Files.writeString(tmp, text, StandardCharsets.UTF_8);
+            written = Files.size(tmp);
+            replaced = Files.exists(file) ? Files.size(file) : -1;
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ignored) {
+            // disk tier is best-effort; memory tier already holds the entry
+            return;
+        }
+        if (replaced < 0) diskFiles.incrementAndGet();
+        if (diskBytes.addAndGet(written - Math.max(0, replaced)) > diskMaxBytes && !sweeping.get()) sweeper.execute(this::sweep);
+    }
+
+    private static void sweepThread(Runnable sweep) {
+        Thread t = new Thread(sweep, "ocr-cache-sweep");
+        t.setDaemon(true);
+        t.start();
+    }
+}
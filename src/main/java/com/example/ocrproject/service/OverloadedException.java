@@ -0,0 +1,19 @@
+package com.example.ocrproject.service;
+
+/**
+ * A call was shed because its concurrency limit was reached or its circuit breaker is open.
+ * The web layer answers these with 503 and {@code Retry-After}.
+ */
+public class OverloadedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public OverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long retryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
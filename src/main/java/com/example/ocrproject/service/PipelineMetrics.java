@@ -0,0 +1,80 @@
+package com.example.ocrproject.service;
+
+import io.micrometer.core.instrument.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Meters for each stage of the OCR -> ingredients -> recipes pipeline, exported through
+ * {@code /actuator/prometheus}. Timers publish histogram buckets so latency percentiles and SLOs can be
+ * computed server-side. Cache and extraction counters are bound separately by {@link PipelineStatsBinder}.
+ */
+@Component
+public class PipelineMetrics {
+
+    private final MeterRegistry registry;
+
+    private final Timer visionLatency;
+    private final Timer preprocessLatency;
+    private final DistributionSummary uploadBytes;
+    private final DistributionSummary preparedBytes;
+    private final Timer scoring;
+    private final Counter extractionFallbacks;
+
+    public PipelineMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.visionLatency = histogram(Timer.builder("ocr.vision.latency")
+                .description("Google Vision call time, including batching wait"));
+        this.preprocessLatency = histogram(Timer.builder("ocr.preprocess.latency")
+                .description("Image decode / resize / re-encode time"));
+        this.uploadBytes = DistributionSummary.builder("ocr.image.size").baseUnit("bytes").tag("stage", "upload")
+                .publishPercentileHistogram().register(registry);
+        this.preparedBytes = DistributionSummary.builder("ocr.image.size").baseUnit("bytes").tag("stage", "prepared")
+                .publishPercentileHistogram().register(registry);
+        this.scoring = histogram(Timer.builder("recipe.scoring.latency")
+                .description("Local catalog scoring and top-K selection"));
+        this.extractionFallbacks = Counter.builder("extraction.fallback")
+                .description("Gemini failed and the lexicon result was used instead").register(registry);
+    }
+
+    // For tests and benchmarks that construct services directly
+    static PipelineMetrics noop() {
+        return new PipelineMetrics(new SimpleMeterRegistry());
+    }
+
+    public Timer visionLatency() { return visionLatency; }
+    public Timer preprocessLatency() { return preprocessLatency; }
+    public DistributionSummary uploadBytes() { return uploadBytes; }
+    public DistributionSummary preparedBytes() { return preparedBytes; }
+    public Timer scoring() { return scoring; }
+    public Counter extractionFallbacks() { return extractionFallbacks; }
+
+    /** Gemini call time by operation (extract, stream, lines, translate, translate_batch) and outcome. */
+    public Timer geminiLatency(String operation, String outcome) {
+        return histogram(Timer.builder("gemini.latency").tag("operation", operation).tag("outcome", outcome));
+    }
+
+    /** Token counts from Gemini usageMetadata; type is prompt or candidates. */
+    public DistributionSummary geminiTokens(String type) {
+        return DistributionSummary.builder("gemini.tokens").baseUnit("tokens").tag("type", type)
+                .publishPercentileHistogram().register(registry);
+    }
+
+    /** TheMealDB lookup time, served from the local mirror or fanned out to the remote API. */
+    public Timer recipeFanout(String source) {
+        return histogram(Timer.builder("recipe.fanout.latency").tag("source", source));
+    }
+
+    /** {@link SingleFlight} outcome per call site: leader, coalesced (joined a call in flight) or abandoned. */
+    public void singleFlight(String call, String result) {
+        registry.counter("upstream.singleflight", "call", call, "result", result).increment();
+    }
+
+    public void upstreamError(String upstream) {
+        registry.counter("upstream.errors", "upstream", upstream).increment();
+    }
+
+    private Timer histogram(Timer.Builder builder) {
+        return builder.publishPercentileHistogram().register(registry);
+    }
+}
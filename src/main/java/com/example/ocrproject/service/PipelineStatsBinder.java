@@ -0,0 +1,62 @@
+package com.example.ocrproject.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Publishes the numeric entries of each component's {@code stats()} map as gauges tagged {@code stat=<key>},
+ * e.g. {@code ocr_cache{stat="memoryHits"}}. Spring Boot binds every {@link MeterBinder} bean at startup.
+ */
+@Component
+public class PipelineStatsBinder implements MeterBinder {
+
+    private final OcrResultCache ocrCache;
+    private final GeminiResultCache geminiCache;
+    private final TranslationMemory translations;
+    private final IngredientExtractor extractor;
+    private final ConcurrencyLimits limits;
+    private final FridgeService fridge;
+    private final RecipeEngine recipeEngine;
+    private final UpstreamWarmup warmup;
+
+    public PipelineStatsBinder(OcrResultCache ocrCache, GeminiResultCache geminiCache,
+                               TranslationMemory translations, IngredientExtractor extractor,
+                               ConcurrencyLimits limits, FridgeService fridge, RecipeEngine recipeEngine,
+                               UpstreamWarmup warmup) {
+        this.ocrCache = ocrCache;
+        this.geminiCache = geminiCache;
+        this.translations = translations;
+        this.extractor = extractor;
+        this.limits = limits;
+        this.fridge = fridge;
+        this.recipeEngine = recipeEngine;
+        this.warmup = warmup;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bind(registry, "ocr.cache", ocrCache::stats);
+        bind(registry, "gemini.cache", geminiCache::stats);
+        bind(registry, "translation.memory", translations::stats);
+        bind(registry, "extraction", extractor::stats);
+        bind(registry, "concurrency.limits", limits::stats); // e.g. concurrency_limits{stat="gemini.limit"}
+        bind(registry, "fridge", fridge::stats);
+        bind(registry, "recipe.catalog", recipeEngine::stats); // e.g. recipe_catalog{stat="bytesPerRecipe"}
+        bind(registry, "startup", warmup::stats); // e.g. startup{stat="readyMillis"}
+    }
+
+    private static void bind(MeterRegistry registry, String name, Supplier<Map<String, Object>> stats) {
+        for (Map.Entry<String, Object> e : stats.get().entrySet()) {
+            if (!(e.getValue() instanceof Number)) continue;
+            String key = e.getKey();
+            Gauge.builder(name, stats, s -> s.get().get(key) instanceof Number n ? n.doubleValue() : Double.NaN)
+                    .tag("stat", key)
+                    .register(registry);
+        }
+    }
+}
@@ -1,174 +1,379 @@
 package com.example.ocrproject.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.ocrproject.dto.RecipeSuggestion;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+/**
+ * TheMealDB client. The filter.php calls for the primary ingredients run concurrently, then up to
+ * {@value #MAX_MEALS} lookup.php calls run concurrently, with at most {@code recipe.api.max-concurrency}
+ * requests in flight to the host. Everything shares one deadline ({@code recipe.api.deadline}): whatever
+ * has arrived by then is returned and the remaining lookups are dropped.
+ *
+ * When the local {@link MealMirrorService} has been loaded, recipes are served from it without any network
+ * call; TheMealDB is then only queried if the mirror has no match and {@code recipe.mirror.remote-fallback} is on.
+ * Instructions are shown in Korean when {@link TranslationMemory} already has them, never translated inline.
+ *
+ * Responses are parsed straight off the connection with a streaming parser that keeps only idMeal (filter) or
+ * the first meal's name, instructions and ingredients (lookup). A filter read stops after {@value #MAX_MEALS}
+ * ids, the most that can ever be looked up, and closing the body abandons the rest of the download.
+ */
 @Service
 public class RecipeApiService {
 
-    private static final String BASE = "https://www.themealdb.com/api/json/v1/1/";
-    private final HttpClient http = HttpClient.newHttpClient();
-    private final ObjectMapper om = new ObjectMapper();
+    private static final int MAX_MEALS = 15;
+    private static final long CANCEL_CHECK_MS = 100;
 
-    public List<Map<String, Object>> fetchRecipesByPrimaryIngredients(List<String> ingredients) {
-        if (ingredients == null || ingredients.isEmpty()) return List.of();
+    private final MealMirrorService mirror;
+    private final KoreanTranslator translator;
+    private final IngredientLexicon lexicon;
+    private final TranslationMemory translations;
+    private final PipelineMetrics metrics;
+    private final boolean remoteFallback;
+    private final String base;
+    private final Duration deadline;
+    private final AsyncLimiter limiter;
+    private final ConcurrencyLimits limits;
+    private final SingleFlight<List<String>> filterFlights;
+    private final SingleFlight<Meal> lookupFlights;
+    private final HttpClient http;
+    private final JsonFactory json = new JsonFactory();
+
+    @Autowired
+    public RecipeApiService(MealMirrorService mirror, KoreanTranslator translator, IngredientLexicon lexicon,
+                            TranslationMemory translations, PipelineMetrics metrics, ConcurrencyLimits limits,
+                            @Value("${recipe.mirror.remote-fallback:true}") boolean remoteFallback,
+                            @Value("${recipe.api.base-url:https://www.themealdb.com/api/json/v1/1/}") String base,
+                            @Value("${recipe.api.deadline:3s}") Duration deadline,
+                            @Value("${recipe.api.max-concurrency:6}") int maxConcurrency,
+                            @Value("${recipe.api.max-queued:256}") int maxQueued,
+                            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.mirror = mirror;
+        this.translator = translator;
+        this.lexicon = lexicon;
+        this.translations = translations;
+        this.metrics = metrics;
+        this.remoteFallback = remoteFallback;
+        this.base = base;
+        this.deadline = deadline;
+        this.limiter = new AsyncLimiter(maxConcurrency, maxQueued, () -> limits.overloaded("TheMealDB"));
+        this.limits = limits;
+        this.filterFlights = new SingleFlight<>("themealdb.filter", metrics);
+        this.lookupFlights = new SingleFlight<>("themealdb.lookup", metrics);
+        this.http = HttpClient.newBuilder()
+                .connectTimeout(deadline)
+                .executor(VirtualThreads.perTask("themealdb-http", virtualThreads))
+                .build();
+    }
+
+    // Remote-only client, no local mirror
+    RecipeApiService(String base, Duration deadline, int maxConcurrency) {
+        this(null, new KoreanTranslator(), new IngredientLexicon(""), null, PipelineMetrics.noop(), ConcurrencyLimits.unlimited(), true, base, deadline, maxConcurrency, 256, false);
+    }
+
+    public List<RecipeSuggestion> fetchRecipesByPrimaryIngredients(List<String> ingredients) {
+        List<RecipeSuggestion> out = new ArrayList<>();
+        fetchRecipesByPrimaryIngredients(ingredients, out::add);
+        return out;
+    }
+
+    /**
+     * Same lookup, but hands each recipe to {@code onRecipe} as soon as its details arrive
+     * so callers can stream results. {@code onRecipe} is always called on the calling thread,
+     * in arrival order.
+     */
+    public void fetchRecipesByPrimaryIngredients(List<String> ingredients, Consumer<RecipeSuggestion> onRecipe) {
+        fetchRecipesByPrimaryIngredients(ingredients, onRecipe, () -> false);
+    }
+
+    /**
+     * Same, for a caller that may go away: once {@code cancelled} is true no further TheMealDB request is made and
+     * the lookups still in flight are cancelled. It is checked between requests and every 100 ms
+     * while waiting for responses.
+     */
+    public void fetchRecipesByPrimaryIngredients(List<String> ingredients, Consumer<RecipeSuggestion> onRecipe,
+                                                 BooleanSupplier cancelled) {
+        if (ingredients == null || ingredients.isEmpty()) return;
+        long deadlineAt = System.nanoTime() + deadline.toNanos();
         // Use first 1~2 ingredients as primary query terms
         List<String> primary = ingredients.size() >= 2 ? ingredients.subList(0, 2) : new ArrayList<>(ingredients);
 
+        // Serve from the local mirror when it is loaded; the network is only a fallback
+        if (mirror != null && mirror.isReady()) {
+            long start = System.nanoTime();
+            int served = fetchFromMirror(primary, onRecipe);
+            metrics.recipeFanout("mirror").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (served > 0 || !remoteFallback || cancelled.getAsBoolean()) return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            fetchRemote(primary, deadlineAt, onRecipe, cancelled);
+        } finally {
+            metrics.recipeFanout("remote").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void fetchRemote(List<String> primary, long deadlineAt, Consumer<RecipeSuggestion> onRecipe,
+                             BooleanSupplier cancelled) {
         // Collect meal IDs from filter by ingredient, then lookup details
-        Set<String> mealIds = new LinkedHashSet<>();
+        // Only the first MAX_MEALS ids overall are looked up, so no single filter needs to return more
+        List<CompletableFuture<List<String>>> filters = new ArrayList<>();
         for (String ing : primary) {
-            String qIng = normalizeIngredientForApi(ing);
+            String url = base + "filter.php?i=" + url(lexicon.english(ing));
+            filters.add(filterFlights.execute(url, () -> fetchAsync(url, deadlineAt, p -> readMealIds(p, MAX_MEALS))));
+        }
+        Set<String> mealIds = new LinkedHashSet<>();
+        for (CompletableFuture<List<String>> f : filters) {
+            if (cancelled.getAsBoolean()) {
+                filters.forEach(b -> b.cancel(true));
+                return;
+            }
             try {
-                String q = BASE + "filter.php?i=" + url(qIng);
-                HttpRequest req = HttpRequest.newBuilder(URI.create(q)).GET().build();
-                HttpResponse<String> res = http.send(req, HttpResponse.BodyHandlers.ofString());
-                if (res.statusCode() != 200 || res.body() == null || res.body().isEmpty()) continue;
-                JsonNode root = om.readTree(res.body());
-                JsonNode meals = root.get("meals");
-                if (meals != null && meals.isArray()) {
-                    for (JsonNode m : meals) {
-                        JsonNode id = m.get("idMeal");
-                        if (id != null && !id.isNull()) mealIds.add(id.asText());
+                mealIds.addAll(f.get(Math.max(0, deadlineAt - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                filters.forEach(b -> b.cancel(true));
+                return;
+            } catch (Exception ignored) {
+                f.cancel(true); // failed or past the deadline; keep whatever the other filter found
+            }
+        }
+
+        if (mealIds.isEmpty() || cancelled.getAsBoolean()) return;
+
+        // Lookup each meal for full details and map to our schema
+        BlockingQueue<Optional<RecipeSuggestion>> arrived = new LinkedBlockingQueue<>();
+        List<CompletableFuture<Meal>> lookups = new ArrayList<>();
+        for (String id : mealIds.stream().limit(MAX_MEALS).collect(Collectors.toList())) {
+            String url = base + "lookup.php?i=" + url(id);
+            CompletableFuture<Meal> meal =
+                    lookupFlights.execute(url, () -> fetchAsync(url, deadlineAt, RecipeApiService::readMeal));
+            meal.thenApply(m -> m == null ? null : suggestion(m))
+                    .whenComplete((r, e) -> arrived.add(Optional.ofNullable(e == null ? r : null)));
+            lookups.add(meal);
+        }
+        try {
+            for (int i = 0; i < lookups.size() && !cancelled.getAsBoolean(); ) {
+                long remaining = deadlineAt - System.nanoTime();
+                if (remaining <= 0) break; // deadline hit: return the partial result
+                Optional<RecipeSuggestion> r = arrived.poll(
+                        Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(CANCEL_CHECK_MS)), TimeUnit.NANOSECONDS);
+                if (r == null) continue;
+                r.ifPresent(onRecipe);
+                i++;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lookups.forEach(f -> f.cancel(true));
+        }
+    }
+
+    private int fetchFromMirror(List<String> primary, Consumer<RecipeSuggestion> onRecipe) {
+        Set<String> mealIds = new LinkedHashSet<>();
+        for (String ing : primary) mealIds.addAll(mirror.mealIdsFor(lexicon.english(ing)));
+        int n = 0;
+        for (String id : mealIds) {
+            if (n == MAX_MEALS) break;
+            RecipeSuggestion r = mirror.meal(id);
+            if (r == null) continue;
+            onRecipe.accept(new RecipeSuggestion(r.name(), r.need(), localize(r.desc()), r.matchCount()));
+            n++;
+        }
+        return n;
+    }
+
+    /** Reads a response body from its first token; may stop before the end of the body. */
+    @FunctionalInterface
+    interface BodyReader<T> {
+        T read(JsonParser p) throws IOException;
+    }
+
+    // GET through the adaptive limit and the per-host limiter, parsing the body with reader as it arrives; fails on
+    // shedding, non-200 or malformed bodies. Concurrent requests for the same URL share one GET via the single
+    // flights, so cancelling a returned future only withdraws that caller; the GET is dropped once all have.
+    private <T> CompletableFuture<T> fetchAsync(String url, long deadlineAt, BodyReader<T> reader) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AdaptiveLimiter.Permit permit = limits.upstream(ConcurrencyLimits.THEMEALDB).tryAcquire();
+        if (permit == null) {
+            result.completeExceptionally(limits.overloaded("TheMealDB"));
+            return result;
+        }
+        Runnable task = () -> {
+            long remaining = deadlineAt - System.nanoTime();
+            if (result.isDone() || remaining <= 0) {
+                limiter.release();
+                permit.cancel();
+                result.completeExceptionally(new TimeoutException("deadline exceeded"));
+                return;
+            }
+            HttpRequest req = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofNanos(remaining)).GET().build();
+            http.sendAsync(req, HttpResponse.BodyHandlers.ofInputStream()).whenComplete((res, err) -> {
+                if (err != null) {
+                    limiter.release();
+                    permit.failure();
+                    metrics.upstreamError("themealdb");
+                    result.completeExceptionally(err);
+                    return;
+                }
+                // Past the deadline or abandoned by every caller: closing the body ends a read in progress
+                result.whenComplete((v, e) -> closeQuietly(res.body()));
+                try (JsonParser p = json.createParser(res.body())) {
+                    if (res.statusCode() != 200) throw new IllegalStateException("TheMealDB HTTP " + res.statusCode());
+                    T value = reader.read(p);
+                    permit.success();
+                    result.complete(value);
+                } catch (Exception e) {
+                    if (result.isDone()) {
+                        permit.cancel(); // we closed it ourselves
+                        return;
                     }
+                    permit.failure();
+                    metrics.upstreamError("themealdb");
+                    result.completeExceptionally(e);
+                } finally {
+                    limiter.release();
                 }
-            } catch (Exception ignored) { }
+            });
+        };
+        try {
+            limiter.submit(task);
+        } catch (OverloadedException e) {
+            permit.cancel();
+            result.completeExceptionally(e);
         }
+        return result;
+    }
 
-        if (mealIds.isEmpty()) return List.of();
+    /** Fields kept from a lookup.php meal: name, instructions and "ingredient measure" entries. */
+    record Meal(String name, String instructions, List<String> need) {}
 
-        // Lookup each meal for full details and map to our schema
-        List<Map<String, Object>> out = new ArrayList<>();
-        for (String id : mealIds.stream().limit(15).collect(Collectors.toList())) {
-            try {
-                String q = BASE + "lookup.php?i=" + id;
-                HttpRequest req = HttpRequest.newBuilder(URI.create(q)).GET().build();
-                HttpResponse<String> res = http.send(req, HttpResponse.BodyHandlers.ofString());
-                if (res.statusCode() != 200 || res.body() == null || res.body().isEmpty()) continue;
-                JsonNode root = om.readTree(res.body());
-                JsonNode meals = root.get("meals");
-                if (meals == null || !meals.isArray() || meals.size() == 0) continue;
-                JsonNode meal = meals.get(0);
-
-                String name = optText(meal, "strMeal");
-                String instructions = optText(meal, "strInstructions");
-
-                // Collect up to 20 ingredients
-                List<String> need = new ArrayList<>();
-                for (int i = 1; i <= 20; i++) {
-                    String ing = optText(meal, "strIngredient" + i);
-                    String measure = optText(meal, "strMeasure" + i);
-                    if (ing == null || ing.isBlank()) continue;
-                    String entry = measure != null && !measure.isBlank() ? (ing + " " + measure) : ing;
-                    need.add(entry.trim());
+    // filter.php: idMeal of each entry of "meals" (null when nothing matches), stopping after limit ids
+    static List<String> readMealIds(JsonParser p, int limit) throws IOException {
+        List<String> ids = new ArrayList<>();
+        expectObject(p);
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            if (p.nextToken() != JsonToken.START_ARRAY || !field.equals("meals")) {
+                p.skipChildren();
+                continue;
+            }
+            for (JsonToken t = p.nextToken(); t != JsonToken.END_ARRAY; t = p.nextToken()) {
+                if (t != JsonToken.START_OBJECT) {
+                    if (t == null) throw new IOException("TheMealDB 응답이 중간에 끝남");
+                    p.skipChildren();
+                    continue;
+                }
+                while (p.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = p.currentName();
+                    p.nextToken();
+                    if (name.equals("idMeal") && p.currentToken() != JsonToken.VALUE_NULL) ids.add(p.getValueAsString());
+                    else p.skipChildren();
                 }
+                if (ids.size() >= limit) return ids; // the rest of the body is never read
+            }
+        }
+        return ids;
+    }
 
-                // 한국어 변환 (간단 사전 기반)
-                String nameKo = toKorean(name);
-                String descKo = instructions; // keep original to avoid translation latency
-                List<String> needKo = toKoreanList(need);
-
-                Map<String, Object> m = new HashMap<>();
-                m.put("name", nameKo);
-                m.put("need", needKo);
-                m.put("desc", descKo);
-                m.put("matchCount", 0); // will be scored in controller
-                out.add(m);
-            } catch (Exception ignored) { }
+    // lookup.php: the first entry of "meals", or null when there is none; the rest of the body is not read
+    static Meal readMeal(JsonParser p) throws IOException {
+        expectObject(p);
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            if (p.nextToken() != JsonToken.START_ARRAY || !field.equals("meals")) {
+                p.skipChildren();
+                continue;
+            }
+            return p.nextToken() == JsonToken.START_OBJECT ? readMealFields(p) : null;
         }
-        return out;
+        return null;
     }
 
-    private static String url(String s) {
-        return java.net.URLEncoder.encode(s, StandardCharsets.UTF_8);
+    private static Meal readMealFields(JsonParser p) throws IOException {
+        String name = null, instructions = null;
+        String[] ingredients = new String[21], measures = new String[21];
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            p.nextToken();
+            if (field.equals("strMeal")) name = p.getValueAsString();
+            else if (field.equals("strInstructions")) instructions = p.getValueAsString();
+            else if (field.startsWith("strIngredient")) put(ingredients, field, "strIngredient".length(), p);
+            else if (field.startsWith("strMeasure")) put(measures, field, "strMeasure".length(), p);
+            else p.skipChildren();
+        }
+
+        // Collect up to 20 ingredients
+        List<String> need = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            String ing = ingredients[i];
+            String measure = measures[i];
+            if (ing == null || ing.isBlank()) continue;
+            String entry = measure != null && !measure.isBlank() ? (ing + " " + measure) : ing;
+            need.add(entry.trim());
+        }
+        return new Meal(name, instructions, need);
     }
 
-    private static String normalizeIngredientForApi(String raw) {
-        if (raw == null) return "";
-        String s = raw.trim().toLowerCase();
-        // Simple ko->en mapping for common items
-        Map<String, String> m = Map.ofEntries(
-                Map.entry("계란", "egg"),
-                Map.entry("달걀", "egg"),
-                Map.entry("밥", "rice"),
-                Map.entry("쌀", "rice"),
-                Map.entry("김치", "kimchi"),
-                Map.entry("양파", "onion"),
-                Map.entry("감자", "potato"),
-                Map.entry("당근", "carrot"),
-                Map.entry("사과", "apple"),
-                Map.entry("치즈", "cheese"),
-                Map.entry("베이컨", "bacon"),
-                Map.entry("빵", "bread"),
-                Map.entry("토마토", "tomato"),
-                Map.entry("참치", "tuna"),
-                Map.entry("요거트", "yogurt"),
-                Map.entry("우유", "milk")
-        );
-        // if exact key exists use it; otherwise return original
-        return m.getOrDefault(s, raw);
-    }
-
-    private static String optText(JsonNode node, String field) {
-        JsonNode v = node.get(field);
-        return (v == null || v.isNull()) ? null : v.asText();
-    }
-
-    // --- Simple term-based translator to Korean for UI-only localization ---
-    private static String toKorean(String s) {
-        if (s == null || s.isBlank()) return s;
-        String out = s;
-        // Common ingredients
-        out = out.replaceAll("(?i)\\begg(s)?\\b", "계란");
-        out = out.replaceAll("(?i)\\bonion(s)?\\b", "양파");
-        out = out.replaceAll("(?i)\\bgarlic\\b", "마늘");
-        out = out.replaceAll("(?i)\\bchicken\\b", "닭고기");
-        out = out.replaceAll("(?i)\\bbeef\\b", "소고기");
-        out = out.replaceAll("(?i)\\bpork\\b", "돼지고기");
-        out = out.replaceAll("(?i)\\brice\\b", "밥");
-        out = out.replaceAll("(?i)\\bnoodles?\\b", "면");
-        out = out.replaceAll("(?i)\\btomato(es)?\\b", "토마토");
-        out = out.replaceAll("(?i)\\bpotato(es)?\\b", "감자");
-        out = out.replaceAll("(?i)\\bcarrot(s)?\\b", "당근");
-        out = out.replaceAll("(?i)\\bsoy sauce\\b", "간장");
-        out = out.replaceAll("(?i)\\bsalt\\b", "소금");
-        out = out.replaceAll("(?i)\\bpepper\\b", "후추");
-        out = out.replaceAll("(?i)\\bsugar\\b", "설탕");
-        out = out.replaceAll("(?i)\\bmilk\\b", "우유");
-        out = out.replaceAll("(?i)\\bbutter\\b", "버터");
-        out = out.replaceAll("(?i)\\bcheese\\b", "치즈");
-        out = out.replaceAll("(?i)\\byogurt\\b", "요거트");
-        out = out.replaceAll("(?i)\\btuna\\b", "참치");
-        out = out.replaceAll("(?i)\\bbread\\b", "빵");
-        out = out.replaceAll("(?i)\\bwater\\b", "물");
-        out = out.replaceAll("(?i)\\boil\\b", "기름");
-        out = out.replaceAll("(?i)\\bsesame oil\\b", "참기름");
-        out = out.replaceAll("(?i)\\bgreen onion(s)?\\b", "대파");
-
-        // Dish name hints
-        out = out.replaceAll("(?i)\\bbulgogi\\b", "불고기");
-        out = out.replaceAll("(?i)\\bkimchi\\b", "김치");
-        out = out.replaceAll("(?i)\\bkimbap|gimbap\\b", "김밥");
-        out = out.replaceAll("(?i)\\bramen|ramen\\b", "라면");
-        out = out.replaceAll("(?i)\\bbibimbap\\b", "비빔밥");
-        out = out.replaceAll("(?i)\\btteokbokki|topokki\\b", "떡볶이");
+    // strIngredientN / strMeasureN with N in 1..20; anything else is ignored
+    private static void put(String[] slots, String field, int prefix, JsonParser p) throws IOException {
+        int n;
+        try {
+            n = Integer.parseInt(field, prefix, field.length(), 10);
+        } catch (NumberFormatException e) {
+            p.skipChildren();
+            return;
+        }
+        if (n >= 1 && n < slots.length) slots[n] = p.getValueAsString();
+        else p.skipChildren();
+    }
 
-        return out;
+    private static void expectObject(JsonParser p) throws IOException {
+        if (p.nextToken() != JsonToken.START_OBJECT) throw new IOException("TheMealDB 응답이 JSON 객체가 아님");
     }
 
-    private static List<String> toKoreanList(List<String> list) {
-        if (list == null) return null;
-        List<String> out = new ArrayList<>(list.size());
-        for (String s : list) out.add(toKorean(s));
-        return out;
+    private static void closeQuietly(InputStream body) {
+        try {
+            body.close();
+        } catch (IOException ignored) {
+            // nothing left to read
+        }
+    }
+
+    RecipeSuggestion suggestion(Meal meal) {
+        // 한국어 변환 (간단 사전 기반)
+        String nameKo = translator.translate(meal.name());
+        String descKo = localize(meal.instructions()); // translation memory only, never a request-time Gemini call
+        List<String> needKo = translator.translateAll(meal.need());
+
+        return new RecipeSuggestion(nameKo, needKo, descKo, 0); // will be scored in controller
+    }
+
+    // Korean instructions when the translation memory has them; otherwise queue them and show the original
+    private String localize(String instructions) {
+        return translations == null ? instructions : translations.findOrRequest(instructions);
+    }
+
+    private static String url(String s) {
+        return java.net.URLEncoder.encode(s, StandardCharsets.UTF_8);
     }
 }
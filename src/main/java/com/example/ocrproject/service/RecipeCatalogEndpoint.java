@@ -0,0 +1,34 @@
+package com.example.ocrproject.service;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * The {@code catalog} endpoint shows the live recipe catalog snapshot (size, estimated bytes per recipe, reloads)
+ * and reloads {@code recipe.catalog.path} now instead of waiting for the next poll. It is exposed over JMX only:
+ * the web actuator has no authentication, and a reload is a write. The same numbers are published as gauges.
+ */
+@Component
+@Endpoint(id = "catalog")
+public class RecipeCatalogEndpoint {
+
+    private final RecipeEngine engine;
+
+    public RecipeCatalogEndpoint(RecipeEngine engine) {
+        this.engine = engine;
+    }
+
+    @ReadOperation
+    public Map<String, Object> catalog() {
+        return engine.stats();
+    }
+
+    @WriteOperation
+    public Map<String, Object> reload() {
+        return engine.reloadNow();
+    }
+}
@@ -0,0 +1,577 @@
+package com.example.ocrproject.service;
+
+import com.example.ocrproject.dto.RecipeSuggestion;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recipe matcher over an immutable catalog snapshot.
+ *
+ * Every distinct (lower-cased) ingredient that appears in a recipe's need list is interned to an int id.
+ * An inverted index maps each id to the recipes that need it, so a request only touches recipes that share
+ * at least one ingredient with the input. Matching keeps the old containsAny semantics (exact, case-insensitive,
+ * or substring in either direction) through a suffix array over the dictionary.
+ *
+ * The catalog comes from {@code recipe.catalog.path} (TSV, see catalog/recipes.tsv) or the bundled resource.
+ * The file is re-read every {@code recipe.catalog.reload-interval} when it changed, or on demand through the
+ * JMX {@code catalog} endpoint, and the new snapshot replaces the old one with a single volatile write:
+ * a request reads the snapshot once and uses it throughout, so readers never lock or wait for a reload.
+ */
+@Service
+public class RecipeEngine {
+
+    public record Recipe(String name, List<String> need, String desc) {}
+
+    static final String DEFAULT_RESOURCE = "catalog/recipes.tsv";
+
+    // Score weights: each matching need counts 1, needs matching a primary ingredient add 2 more
+    private static final int BASE_WEIGHT = 1;
+    private static final int PRIMARY_BOOST = 2;
+    private static final int PRIMARY_COUNT = 2;
+
+    private final String path;
+    private volatile Catalog catalog;
+    private long loadedModified = -1;
+    private final AtomicLong reloads = new AtomicLong();
+    private volatile long lastLoadMillis;
+
+    @Autowired
+    public RecipeEngine(@Value("${recipe.catalog.path:}") String path) {
+        this.path = path;
+        if (path == null || path.isBlank()) {
+            InputStream in = RecipeEngine.class.getClassLoader().getResourceAsStream(DEFAULT_RESOURCE);
+            if (in == null) throw new IllegalStateException("Missing recipe catalog: " + DEFAULT_RESOURCE);
+            try (BufferedReader r = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+                publish(parse(r));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } else {
+            reload();
+        }
+    }
+
+    RecipeEngine(List<Recipe> recipes) {
+        this.path = null;
+        publish(recipes);
+    }
+
+    /** Re-reads {@code recipe.catalog.path} if it changed; requests keep using the previous snapshot until the swap. */
+    @Scheduled(fixedDelayString = "${recipe.catalog.reload-interval:PT1M}")
+    public synchronized void reload() {
+        if (path == null || path.isBlank()) return;
+        Path file = Path.of(path);
+        try {
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            if (modified == loadedModified) return;
+            try (BufferedReader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                publish(parse(r));
+            }
+            loadedModified = modified;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Recipe catalog load failed: " + path, e);
+        }
+    }
+
+    /** Reloads {@code recipe.catalog.path} even if it looks unchanged, and returns the new {@link #stats}. */
+    public synchronized Map<String, Object> reloadNow() {
+        loadedModified = -1;
+        reload();
+        return stats();
+    }
+
+    // Builds the snapshot off to the side, then swaps it in
+    private void publish(List<Recipe> recipes) {
+        if (recipes.isEmpty()) throw new IllegalStateException("Recipe catalog is empty; keeping the previous one");
+        long start = System.nanoTime();
+        Catalog next = new Catalog(recipes);
+        lastLoadMillis = (System.nanoTime() - start) / 1_000_000;
+        catalog = next;
+        reloads.incrementAndGet();
+    }
+
+    // <name>\t<need, comma separated>\t<description>; blank lines and # comments are skipped
+    static List<Recipe> parse(BufferedReader r) throws IOException {
+        List<Recipe> out = new ArrayList<>();
+        String line;
+        while ((line = r.readLine()) != null) {
+            if (line.isBlank() || line.startsWith("#")) continue;
+            String[] cols = line.split("\t");
+            if (cols.length < 2) continue;
+            List<String> need = new ArrayList<>();
+            for (String n : cols[1].split(",")) {
+                if (!n.isBlank()) need.add(n.trim());
+            }
+            out.add(new Recipe(cols[0].trim(), need, cols.length > 2 ? cols[2].trim() : ""));
+        }
+        return out;
+    }
+
+    /**
+     * Scores every recipe sharing at least one ingredient with the input and returns the best {@code limit}.
+     * The first two ingredients are treated as primary. Results are ordered by score desc, then by catalog order.
+     */
+    public List<RecipeSuggestion> recommend(List<String> ingredients, int limit) {
+        if (ingredients == null || ingredients.isEmpty() || limit <= 0) return List.of();
+        Catalog c = catalog;
+
+        BitSet primary = new BitSet(c.tokenCount());
+        BitSet all = new BitSet(c.tokenCount());
+        for (int i = 0; i < ingredients.size(); i++) {
+            c.matchTokens(ingredients.get(i), i < PRIMARY_COUNT ? primary : all);
+        }
+        all.or(primary);
+
+        // Only recipes that share a token with the input get an entry, so the cost follows the matches, not the catalog
+        Counts scores = new Counts(64);
+        for (int t = all.nextSetBit(0); t >= 0; t = all.nextSetBit(t + 1)) {
+            int weight = primary.get(t) ? BASE_WEIGHT + PRIMARY_BOOST : BASE_WEIGHT;
+            for (int p = c.postingStart[t]; p < c.postingStart[t + 1]; p++) {
+                scores.add(c.postingRecipes[p], weight);
+            }
+        }
+        return c.top(scores, limit);
+    }
+
+    public int size() {
+        return catalog.size();
+    }
+
+    public Map<String, Object> stats() {
+        Catalog c = catalog;
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("recipes", c.size());
+        out.put("ingredients", c.tokenCount());
+        out.put("bytes", c.bytes());
+        out.put("bytesPerRecipe", c.bytes() / c.size());
+        out.put("indexBytes", c.indexBytes());
+        out.put("reloads", reloads.get());
+        out.put("loadMillis", lastLoadMillis);
+        return out;
+    }
+
+    /** An empty {@link Pantry} over this catalog. */
+    public Pantry pantry() {
+        return new Pantry(catalog);
+    }
+
+    /**
+     * Recommendations for an ingredient set that changes one ingredient at a time, such as a user's fridge.
+     * Per-recipe scores are kept between calls; {@link #add} and {@link #remove} adjust only the recipes posted
+     * under the tokens whose weight changed, instead of rescoring the whole set. {@link #top} returns what
+     * {@link #recommend} would for the same ingredients with the same ones treated as primary. An ingredient must
+     * be removed with the primary flag it was added with. A pantry stays on the snapshot it was created from;
+     * once {@link #isCurrent} turns false after a reload, build a new one. Not thread-safe.
+     */
+    public final class Pantry {
+        private final Catalog catalog;
+        // Sparse, so a pantry costs what its ingredients touch rather than the catalog size
+        private final Counts refs = new Counts(16);        // token id -> ingredients matching it
+        private final Counts primaryRefs = new Counts(8);  // token id -> primary ingredients matching it
+        private final Counts scores = new Counts(64);      // recipe id -> score
+
+        private Pantry(Catalog catalog) {
+            this.catalog = catalog;
+        }
+
+        /** False once the catalog has been reloaded since this pantry was created. */
+        public boolean isCurrent() {
+            return catalog == RecipeEngine.this.catalog;
+        }
+
+        public void add(String ingredient, boolean primary) {
+            update(ingredient, primary, 1);
+        }
+
+        public void remove(String ingredient, boolean primary) {
+            update(ingredient, primary, -1);
+        }
+
+        /** Approximate retained size of the per-pantry state. */
+        public long bytes() {
+            return refs.bytes() + primaryRefs.bytes() + scores.bytes();
+        }
+
+        private void update(String ingredient, boolean primary, int delta) {
+            BitSet tokens = new BitSet();
+            catalog.matchTokens(ingredient, tokens);
+            for (int t = tokens.nextSetBit(0); t >= 0; t = tokens.nextSetBit(t + 1)) {
+                int before = weight(t);
+                refs.add(t, delta);
+                if (primary) primaryRefs.add(t, delta);
+                int change = weight(t) - before;
+                if (change == 0) continue;
+                for (int p = catalog.postingStart[t]; p < catalog.postingStart[t + 1]; p++) {
+                    scores.add(catalog.postingRecipes[p], change);
+                }
+            }
+        }
+
+        // Same weight recommend gives a token: the primary weight if any primary ingredient matches it
+        private int weight(int token) {
+            if (primaryRefs.get(token) > 0) return BASE_WEIGHT + PRIMARY_BOOST;
+            return refs.get(token) > 0 ? BASE_WEIGHT : 0;
+        }
+
+        /** Ranks only the recipes this pantry has touched. */
+        public List<RecipeSuggestion> top(int limit) {
+            if (limit <= 0) return List.of();
+            return catalog.top(scores, limit);
+        }
+    }
+
+    /**
+     * One immutable catalog version in columnar form. Recipe {@code r} is {@code names[r]}, {@code descs[r]} and
+     * the need entries in {@code needs[needStart[r] .. needStart[r + 1])}; each entry is an id into
+     * {@code spellings} (every distinct need string, stored once) and {@code tokenOf} maps it to its lower-cased
+     * token. The recipes needing token {@code t} are {@code postingRecipes[postingStart[t] .. postingStart[t + 1])},
+     * one entry per occurrence. Tokens containing a given string are found through {@code suffixes}, the sorted
+     * start offsets of every suffix of {@code text} (all tokens joined by {@link #SEPARATOR}), so the index grows
+     * with the dictionary's total length instead of storing every substring. Apart from the dictionary, everything
+     * is a flat array.
+     */
+    static final class Catalog {
+        private static final char SEPARATOR = '\0';
+
+        private final String[] names;
+        private final String[] descs;
+        private final int[] needStart;
+        private final int[] needs;
+        private final String[] spellings;
+        private final int[] tokenOf;
+        private final Map<String, Integer> dictionary = new HashMap<>(); // lower-cased token -> id
+        private final int[] postingStart;
+        private final int[] postingRecipes;
+        private final String text;         // token 0, SEPARATOR, token 1, SEPARATOR, ...
+        private final int[] tokenStart;    // token id -> its offset in text
+        private final int[] suffixes;      // offsets into text, ordered by the suffix starting there
+        private final int maxTokenLength;
+        private final long bytes;
+
+        Catalog(List<Recipe> recipes) {
+            int count = recipes.size();
+            names = new String[count];
+            descs = new String[count];
+            needStart = new int[count + 1];
+            int total = 0;
+            for (Recipe r : recipes) total += r.need().size();
+            needs = new int[total];
+
+            Map<String, Integer> spellingIds = new HashMap<>();
+            List<String> spellingList = new ArrayList<>();
+            List<Integer> tokenList = new ArrayList<>();
+            int[] postingCounts = new int[16];
+            int maxLen = 0, k = 0;
+            for (int r = 0; r < count; r++) {
+                Recipe recipe = recipes.get(r);
+                names[r] = recipe.name();
+                descs[r] = recipe.desc();
+                needStart[r] = k;
+                for (String need : recipe.need()) {
+                    Integer s = spellingIds.get(need);
+                    if (s == null) {
+                        s = spellingList.size();
+                        spellingIds.put(need, s);
+                        spellingList.add(need);
+                        String token = need.toLowerCase();
+                        Integer id = dictionary.get(token);
+                        if (id == null) {
+                            id = dictionary.size();
+                            dictionary.put(token, id);
+                            maxLen = Math.max(maxLen, token.length());
+                            if (id == postingCounts.length) postingCounts = Arrays.copyOf(postingCounts, id * 2);
+                        }
+                        tokenList.add(id);
+                    }
+                    needs[k++] = s;
+                    postingCounts[tokenList.get(s)]++;
+                }
+            }
+            needStart[count] = k;
+            spellings = spellingList.toArray(String[]::new);
+            tokenOf = tokenList.stream().mapToInt(Integer::intValue).toArray();
+            maxTokenLength = maxLen;
+
+            // Postings in CSR form, recipe ids ascending within each token
+            int tokens = dictionary.size();
+            postingStart = new int[tokens + 1];
+            for (int t = 0; t < tokens; t++) postingStart[t + 1] = postingStart[t] + postingCounts[t];
+            postingRecipes = new int[k];
+            int[] fill = Arrays.copyOf(postingStart, tokens);
+            for (int r = 0; r < count; r++) {
+                for (int i = needStart[r]; i < needStart[r + 1]; i++) postingRecipes[fill[tokenOf[needs[i]]]++] = r;
+            }
+
+            String[] byId = new String[tokens];
+            dictionary.forEach((token, id) -> byId[id] = token);
+            StringBuilder joined = new StringBuilder();
+            tokenStart = new int[tokens];
+            for (int t = 0; t < tokens; t++) {
+                tokenStart[t] = joined.length();
+                joined.append(byId[t]).append(SEPARATOR);
+            }
+            text = joined.toString();
+            suffixes = sortSuffixes(text);
+            bytes = estimateBytes();
+        }
+
+        int size() {
+            return names.length;
+        }
+
+        int tokenCount() {
+            return postingStart.length - 1;
+        }
+
+        /** Approximate retained size of this snapshot (64-bit JVM, compressed oops, compact strings). */
+        long bytes() {
+            return bytes;
+        }
+
+        private long estimateBytes() {
+            long b = 0;
+            for (String s : names) b += stringBytes(s);
+            for (String s : descs) b += stringBytes(s);
+            for (String s : spellings) b += stringBytes(s);
+            b += arrayBytes(names.length, 4) * 3 + arrayBytes(spellings.length, 4);
+            b += arrayBytes(needStart.length, 4) + arrayBytes(needs.length, 4) + arrayBytes(tokenOf.length, 4);
+            b += arrayBytes(postingStart.length, 4) + arrayBytes(postingRecipes.length, 4);
+            // HashMap: table slot + 32-byte node per entry; boxed ids above the Integer cache are 16 bytes each
+            for (String token : dictionary.keySet()) b += 4 + 32 + 16 + stringBytes(token);
+            return b + indexBytes();
+        }
+
+        /** The part of {@link #bytes} taken by the substring (suffix array) index. */
+        long indexBytes() {
+            return stringBytes(text) + arrayBytes(tokenStart.length, 4) + arrayBytes(suffixes.length, 4);
+        }
+
+        // Suffixes ending in a separator are left out: no query matches them
+        private static int[] sortSuffixes(String text) {
+            List<Integer> starts = new ArrayList<>();
+            for (int i = 0; i < text.length(); i++) {
+                if (text.charAt(i) != SEPARATOR) starts.add(i);
+            }
+            starts.sort((a, b) -> {
+                int n = text.length() - Math.max(a, b);
+                for (int i = 0; i < n; i++) {
+                    int c = text.charAt(a + i) - text.charAt(b + i);
+                    if (c != 0) return c;
+                }
+                return b - a; // the shorter suffix (later start) first
+            });
+            return starts.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        private static long stringBytes(String s) {
+            if (s == null) return 0;
+            boolean latin1 = s.chars().allMatch(ch -> ch < 256);
+            return 24 + arrayBytes(s.length(), latin1 ? 1 : 2);
+        }
+
+        static long arrayBytes(int length, int elementBytes) {
+            return (16 + (long) length * elementBytes + 7) & ~7L;
+        }
+
+        private List<String> need(int recipe) {
+            String[] out = new String[needStart[recipe + 1] - needStart[recipe]];
+            for (int i = 0; i < out.length; i++) out[i] = spellings[needs[needStart[recipe] + i]];
+            return List.of(out);
+        }
+
+        // Best limit of the recipes with a positive score, through a bounded heap
+        List<RecipeSuggestion> top(Counts scores, int limit) {
+            // Bounded min-heap of packed (score, recipeId) keys; the root is the weakest kept candidate
+            long[] heap = new long[Math.min(limit, scores.size())];
+            int size = 0;
+            for (int i = 0; i < scores.keys.length; i++) {
+                int recipe = scores.keys[i];
+                if (recipe == Counts.EMPTY || scores.values[i] <= 0) continue;
+                long key = rankKey(scores.values[i], recipe);
+                if (size < heap.length) {
+                    heap[size] = key;
+                    siftUp(heap, size++);
+                } else if (key > heap[0]) {
+                    heap[0] = key;
+                    siftDown(heap, 0, size);
+                }
+            }
+
+            RecipeSuggestion[] out = new RecipeSuggestion[size];
+            while (size > 0) {
+                long key = heap[0];
+                heap[0] = heap[--size];
+                siftDown(heap, 0, size);
+                int id = (int) (0xFFFFFFFFL - (key & 0xFFFFFFFFL));
+                out[size] = new RecipeSuggestion(names[id], need(id), descs[id], (int) (key >>> 32));
+            }
+            return List.of(out);
+        }
+
+        // Marks every dictionary token that equals, contains, or is contained in the ingredient
+        void matchTokens(String ingredient, BitSet out) {
+            if (ingredient == null || ingredient.isEmpty()) return;
+            String s = ingredient.toLowerCase();
+            if (s.indexOf(SEPARATOR) < 0) {
+                // Suffixes starting with s are contiguous in the suffix array; each lies inside one token
+                for (int i = lowerBound(s); i < suffixes.length && comparePrefix(suffixes[i], s) == 0; i++) {
+                    int t = Arrays.binarySearch(tokenStart, suffixes[i]);
+                    out.set(t >= 0 ? t : -t - 2);
+                }
+            }
+            for (int i = 0; i < s.length(); i++) {
+                int end = Math.min(s.length(), i + maxTokenLength);
+                for (int j = i + 1; j <= end; j++) {
+                    Integer id = dictionary.get(s.substring(i, j));
+                    if (id != null) out.set(id);
+                }
+            }
+        }
+
+        // First suffix whose first s.length() chars are not below s
+        private int lowerBound(String s) {
+            int lo = 0, hi = suffixes.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (comparePrefix(suffixes[mid], s) < 0) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        // The suffix at start, cut to s.length() chars, compared with s
+        private int comparePrefix(int start, String s) {
+            for (int i = 0; i < s.length(); i++) {
+                if (start + i == text.length()) return -1;
+                int c = text.charAt(start + i) - s.charAt(i);
+                if (c != 0) return c;
+            }
+            return 0;
+        }
+
+        // Higher score ranks first; on ties the lower recipe id (earlier in the catalog) wins
+        private static long rankKey(int score, int recipeId) {
+            return ((long) score << 32) | (0xFFFFFFFFL - recipeId);
+        }
+
+        private static void siftUp(long[] heap, int i) {
+            long key = heap[i];
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[parent] <= key) break;
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = key;
+        }
+
+        private static void siftDown(long[] heap, int i, int size) {
+            long key = heap[i];
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && heap[child + 1] < heap[child]) child++;
+                if (key <= heap[child]) break;
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = key;
+        }
+    }
+
+    /**
+     * Open-addressing map from a non-negative int (recipe or token id) to an int, for scores and counts that touch
+     * a small part of the catalog. Entries whose value went back to 0 stay until the next resize drops them.
+     */
+    static final class Counts {
+        static final int EMPTY = -1;
+
+        private int[] keys;
+        private int[] values;
+        private int used; // slots taken, including entries that are 0 again
+        private int shift; // 32 - log2(capacity): the hash's top bits pick the slot
+
+        Counts(int expected) {
+            allocate(capacityFor(expected));
+        }
+
+        int get(int key) {
+            int i = slot(key);
+            return keys[i] == key ? values[i] : 0;
+        }
+
+        /** Adds {@code delta} to the value for {@code key} and returns the new value. */
+        int add(int key, int delta) {
+            int i = slot(key);
+            if (keys[i] != key) {
+                if (delta == 0) return 0;
+                if ((used + 1) * 2 > keys.length) {
+                    resize();
+                    i = slot(key);
+                }
+                keys[i] = key;
+                used++;
+            }
+            return values[i] += delta;
+        }
+
+        /** Upper bound on the non-zero entries. */
+        int size() {
+            return used;
+        }
+
+        long bytes() {
+            return Catalog.arrayBytes(keys.length, 4) * 2;
+        }
+
+        private int slot(int key) {
+            int mask = keys.length - 1;
+            // Fibonacci hashing; taking as many top bits as the table needs keeps ids spread past 2^16 slots
+            int i = (key * 0x9E3779B9) >>> shift;
+            while (keys[i] != EMPTY && keys[i] != key) i = (i + 1) & mask;
+            return i;
+        }
+
+        private void resize() {
+            int[] oldKeys = keys, oldValues = values;
+            int live = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY && oldValues[i] != 0) live++;
+            }
+            allocate(capacityFor(live + 1));
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == EMPTY || oldValues[i] == 0) continue;
+                int j = slot(oldKeys[i]);
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+                used++;
+            }
+        }
+
+        private void allocate(int capacity) {
+            keys = new int[capacity];
+            Arrays.fill(keys, EMPTY);
+            shift = 32 - Integer.numberOfTrailingZeros(capacity);
+            values = new int[capacity];
+            used = 0;
+        }
+
+        // Power of two with the entries at most a quarter full, so the map can double before the next resize
+        private static int capacityFor(int entries) {
+            return Math.max(8, Integer.highestOneBit(Math.max(1, entries) * 4 - 1) << 1);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.ocrproject.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Background pre-translation of recipe instructions into the {@link TranslationMemory}: texts requested by
+ * recent responses first, then the mirrored TheMealDB corpus, at most {@code gemini.translate.pretranslate-max-per-run}
+ * per run and in batched Gemini calls.
+ *
+ * The run only picks the texts and hands them to {@link GeminiService}; it does not wait for the batches, so the
+ * shared scheduler thread stays free for the catalog and lexicon reloads. A run is skipped while the previous
+ * one's batches are still in flight.
+ */
+@Component
+public class RecipeTranslationJob {
+
+    private static final Logger log = LoggerFactory.getLogger(RecipeTranslationJob.class);
+
+    private final GeminiService geminiService;
+    private final MealMirrorService mirror;
+    private final TranslationMemory translations;
+    private final boolean enabled;
+    private final int maxPerRun;
+    private final AtomicBoolean inFlight = new AtomicBoolean();
+
+    public RecipeTranslationJob(GeminiService geminiService, MealMirrorService mirror, TranslationMemory translations,
+                                @Value("${gemini.translate.pretranslate:true}") boolean enabled,
+                                @Value("${gemini.translate.pretranslate-max-per-run:200}") int maxPerRun) {
+        this.geminiService = geminiService;
+        this.mirror = mirror;
+        this.translations = translations;
+        this.enabled = enabled;
+        this.maxPerRun = maxPerRun;
+    }
+
+    @Scheduled(initialDelayString = "PT1M", fixedDelayString = "${gemini.translate.pretranslate-interval:PT10M}")
+    public void run() {
+        if (!enabled || !inFlight.compareAndSet(false, true)) return;
+        List<String> todo = new ArrayList<>();
+        CompletableFuture<?> batches;
+        try {
+            todo.addAll(translations.drainPending(maxPerRun));
+            for (String text : mirror.instructions()) {
+                if (todo.size() >= maxPerRun) break;
+                if (!todo.contains(text) && !translations.contains(text)) todo.add(text);
+            }
+            batches = todo.isEmpty() ? CompletableFuture.completedFuture(null) : geminiService.translateAllToKoreanAsync(todo);
+        } catch (RuntimeException e) {
+            inFlight.set(false);
+            todo.forEach(translations::request);
+            throw e;
+        }
+        batches.whenComplete((done, e) -> {
+            inFlight.set(false);
+            if (e == null) return;
+            todo.forEach(translations::request); // try again next run
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            log.warn("레시피 번역 실패, 다음 실행에서 다시 시도: {}", cause.getMessage());
+        });
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.ocrproject.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Keyed single-flight: while a call for a key is outstanding, further callers with the same key wait on that
+ * call instead of making their own. Nothing is kept once the call completes, so unlike a cache there is no
+ * staleness; the next caller after completion starts a fresh call.
+ *
+ * Every caller gets its own future. The shared call's error reaches all of them unchanged. A caller may give up
+ * by cancelling (or otherwise completing) its future; when the last one does so before the call finishes, the
+ * call's future is cancelled and the key is freed. Outcomes are counted as {@code upstream.singleflight}
+ * {result=leader|coalesced|abandoned}.
+ */
+public class SingleFlight<V> {
+
+    private final class Flight {
+        final String key;
+        final CompletableFuture<V> result = new CompletableFuture<>();
+        CompletableFuture<V> call;
+        int waiters;
+        boolean abandoned;
+
+        Flight(String key) {
+            this.key = key;
+        }
+
+        synchronized boolean join() {
+            if (abandoned) return false;
+            waiters++;
+            return true;
+        }
+
+        void leave() {
+            CompletableFuture<V> toCancel;
+            synchronized (this) {
+                if (--waiters > 0 || result.isDone() || abandoned) return;
+                abandoned = true;
+                toCancel = call;
+            }
+            flights.remove(key, this);
+            metrics.singleFlight(name, "abandoned");
+            if (toCancel != null) toCancel.cancel(true);
+            result.cancel(true);
+        }
+    }
+
+    private final String name;
+    private final PipelineMetrics metrics;
+    private final ConcurrentHashMap<String, Flight> flights = new ConcurrentHashMap<>();
+
+    public SingleFlight(String name, PipelineMetrics metrics) {
+        this.name = name;
+        this.metrics = metrics;
+    }
+
+    /** Joins the outstanding call for {@code key}, or starts one with {@code call} if there is none. */
+    public CompletableFuture<V> execute(String key, Supplier<CompletableFuture<V>> call) {
+        while (true) {
+            Flight existing = flights.get(key);
+            if (existing != null) {
+                if (existing.join()) {
+                    metrics.singleFlight(name, "coalesced");
+                    return follow(existing);
+                }
+                flights.remove(key, existing); // abandoned a moment ago
+                continue;
+            }
+            Flight flight = new Flight(key);
+            flight.join();
+            if (flights.putIfAbsent(key, flight) != null) continue;
+            metrics.singleFlight(name, "leader");
+            CompletableFuture<V> mine = follow(flight);
+            start(flight, call);
+            return mine;
+        }
+    }
+
+    public int inFlight() {
+        return flights.size();
+    }
+
+    private void start(Flight flight, Supplier<CompletableFuture<V>> call) {
+        CompletableFuture<V> upstream;
+        try {
+            upstream = call.get();
+        } catch (RuntimeException e) {
+            upstream = CompletableFuture.failedFuture(e);
+        }
+        boolean abandoned;
+        synchronized (flight) {
+            flight.call = upstream;
+            abandoned = flight.abandoned;
+        }
+        // Every caller left while call.get() was still running, before leave() could see the call to cancel it
+        if (abandoned) upstream.cancel(true);
+        upstream.whenComplete((v, e) -> {
+            flights.remove(flight.key, flight);
+            if (e != null) flight.result.completeExceptionally(unwrap(e));
+            else flight.result.complete(v);
+        });
+    }
+
+    private CompletableFuture<V> follow(Flight flight) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        flight.result.whenComplete((v, e) -> {
+            if (e != null) mine.completeExceptionally(unwrap(e));
+            else mine.complete(v);
+        });
+        mine.whenComplete((v, e) -> {
+            if (!flight.result.isDone()) flight.leave(); // this caller gave up first
+        });
+        return mine;
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.ocrproject.service;
+
+import com.example.ocrproject.entity.Translation;
+import com.example.ocrproject.repository.TranslationRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Persistent English -> Korean translation memory. Entries live in the H2 {@code translation} table keyed by the
+ * SHA-256 of the source text, with a Caffeine cache in front. Misses are remembered for
+ * {@code gemini.translate.miss-ttl} too, so an untranslated text does not cost an H2 query on every request that
+ * shows it; {@link #put} clears the miss as soon as the translation is stored.
+ *
+ * Request paths only read from it; a text that is not translated yet is recorded with {@link #request} and
+ * translated later by {@link RecipeTranslationJob}, so no request waits on Gemini for a translation.
+ */
+@Component
+public class TranslationMemory {
+
+    private final TranslationRepository repository;
+    private final Cache<String, String> front; // source hash -> Korean
+    private final Cache<String, Boolean> recentMisses; // source hashes not in the table when last looked up
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final int maxPending;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public TranslationMemory(TranslationRepository repository,
+                             @Value("${gemini.translate.cache-max-entries:10000}") long maxEntries,
+                             @Value("${gemini.translate.max-pending:5000}") int maxPending,
+                             @Value("${gemini.translate.miss-ttl:1m}") Duration missTtl) {
+        this.repository = repository;
+        this.front = Caffeine.newBuilder().maximumSize(maxEntries).build();
+        this.recentMisses = Caffeine.newBuilder().maximumSize(maxEntries).expireAfterWrite(missTtl).build();
+        this.maxPending = maxPending;
+    }
+
+    /** Korean translation of {@code source}, or null if it has not been translated yet. */
+    public String find(String source) {
+        if (source == null || source.isBlank()) return source;
+        String key = key(source);
+        String ko = front.getIfPresent(key);
+        if (ko == null && recentMisses.getIfPresent(key) == null) {
+            ko = repository.findById(key).map(Translation::getKorean).orElse(null);
+            if (ko != null) front.put(key, ko);
+            else recentMisses.put(key, Boolean.TRUE);
+        }
+        (ko != null ? hits : misses).incrementAndGet();
+        return ko;
+    }
+
+    boolean contains(String source) {
+        String key = key(source);
+        if (front.getIfPresent(key) != null) return true;
+        return recentMisses.getIfPresent(key) == null && repository.existsById(key);
+    }
+
+    /** Translation if known; otherwise queues {@code source} for background translation and returns it unchanged. */
+    public String findOrRequest(String source) {
+        String ko = find(source);
+        if (ko != null) return ko;
+        request(source);
+        return source;
+    }
+
+    public void put(String source, String korean) {
+        String key = key(source);
+        repository.save(new Translation(key, source, korean));
+        front.put(key, korean);
+        recentMisses.invalidate(key);
+    }
+
+    public void request(String source) {
+        if (source == null || source.isBlank() || pending.size() >= maxPending) return;
+        pending.add(source);
+    }
+
+    /** Removes and returns up to {@code max} queued texts. */
+    List<String> drainPending(int max) {
+        List<String> out = new ArrayList<>();
+        Iterator<String> it = pending.iterator();
+        while (it.hasNext() && out.size() < max) {
+            out.add(it.next());
+            it.remove();
+        }
+        return out;
+    }
+
+    public Map<String, Object> stats() {
+        long h = hits.get(), m = misses.get();
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("hits", h);
+        out.put("misses", m);
+        out.put("hitRatio", h + m == 0 ? 0.0 : (double) h / (h + m));
+        out.put("pending", pending.size());
+        out.put("size", front.estimatedSize());
+        out.put("recentMisses", recentMisses.estimatedSize());
+        return out;
+    }
+
+    static String key(String source) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(source.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
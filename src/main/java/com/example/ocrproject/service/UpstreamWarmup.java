@@ -0,0 +1,103 @@
+package com.example.ocrproject.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warms what the first requests would otherwise pay for, in the background once the application has started:
+ * the Vision client (Google credential discovery, gRPC channel) and the TheMealDB mirror import. Until every
+ * step has finished, or {@code startup.warmup.timeout} has passed, this health contributor is OUT_OF_SERVICE;
+ * it is part of the readiness group, so {@code /actuator/health/readiness} answers 503 while liveness stays UP.
+ *
+ * A failed step (e.g. no Google credentials) does not hold readiness back: it is logged and shown in the health
+ * details, and the request that needs the client tries again.
+ */
+@Component
+public class UpstreamWarmup implements HealthIndicator {
+
+    private static final Logger log = LoggerFactory.getLogger(UpstreamWarmup.class);
+
+    private final VisionBatcher vision;
+    private final MealMirrorService mirror;
+    private final Duration timeout;
+
+    private final Map<String, String> steps = new ConcurrentHashMap<>(); // step -> result
+    private volatile long warmupMillis = -1;
+    private volatile long readyMillis = -1; // since JVM start
+
+    public UpstreamWarmup(VisionBatcher vision, MealMirrorService mirror,
+                          @Value("${startup.warmup.timeout:60s}") Duration timeout) {
+        this.vision = vision;
+        this.mirror = mirror;
+        this.timeout = timeout;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        long start = System.nanoTime();
+        CompletableFuture.allOf(
+                        step("vision", vision::warmUp),
+                        step("mealMirror", mirror::refresh))
+                .completeOnTimeout(null, timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((v, e) -> {
+                    for (String name : new String[]{"vision", "mealMirror"}) steps.putIfAbsent(name, "timed out");
+                    warmupMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    readyMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+                    log.info("Upstream warm-up finished in {} ms, ready {} ms after JVM start: {}", warmupMillis, readyMillis, steps);
+                });
+    }
+
+    public boolean isWarm() {
+        return readyMillis >= 0;
+    }
+
+    private CompletableFuture<Void> step(String name, Runnable task) {
+        return CompletableFuture.runAsync(() -> {
+            long start = System.nanoTime();
+            try {
+                task.run();
+                steps.putIfAbsent(name, "ok in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+            } catch (RuntimeException e) {
+                log.warn("Warm-up of {} failed, first use will retry: {}", name, e.getMessage());
+                steps.putIfAbsent(name, "failed: " + e.getMessage());
+            }
+        }, daemon("warmup-" + name));
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder health = isWarm() ? Health.up() : Health.outOfService();
+        return health.withDetails(new LinkedHashMap<>(steps)).build();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("warm", isWarm() ? 1 : 0);
+        out.put("warmupMillis", warmupMillis);
+        out.put("readyMillis", readyMillis);
+        return out;
+    }
+
+    private static Executor daemon(String name) {
+        return r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            t.start();
+        };
+    }
+}
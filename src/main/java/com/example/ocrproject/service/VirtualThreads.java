@@ -0,0 +1,52 @@
+package com.example.ocrproject.service;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Thread-per-task executors for upstream calls. With {@code spring.threads.virtual.enabled} on a Java 21 runtime
+ * each task gets a virtual thread; otherwise (the default Java 17 build) a cached pool of daemon platform threads.
+ * Either way the executor itself is unbounded: concurrency per upstream is capped by the callers' semaphores
+ * ({@link AsyncLimiter}, {@link VisionBatcher}, {@link GoogleOcrService}), not by pool sizes.
+ *
+ * The Java 21 API is reached through reflection so the same sources still compile on the 17 toolchain.
+ */
+final class VirtualThreads {
+
+    private VirtualThreads() {}
+
+    static boolean available() {
+        return Runtime.version().feature() >= 21;
+    }
+
+    static ExecutorService perTask(String name, boolean virtual) {
+        if (virtual && available()) {
+            try {
+                ThreadFactory factory = virtualFactory(name);
+                Method m = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+                return (ExecutorService) m.invoke(null, factory);
+            } catch (ReflectiveOperationException e) {
+                // fall through to platform threads
+            }
+        }
+        return Executors.newCachedThreadPool(daemon(name));
+    }
+
+    // Thread.ofVirtual().name(name + "-", 0).factory()
+    private static ThreadFactory virtualFactory(String name) throws ReflectiveOperationException {
+        Class<?> builder = Class.forName("java.lang.Thread$Builder");
+        Object b = Thread.class.getMethod("ofVirtual").invoke(null);
+        b = builder.getMethod("name", String.class, long.class).invoke(b, name + "-", 0L);
+        return (ThreadFactory) builder.getMethod("factory").invoke(b);
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
@@ -0,0 +1,272 @@
+package com.example.ocrproject.service;
+
+import com.google.api.gax.core.NoCredentialsProvider;
+import com.google.api.gax.grpc.InstantiatingGrpcChannelProvider;
+import com.google.cloud.vision.v1.AnnotateImageRequest;
+import com.google.cloud.vision.v1.AnnotateImageResponse;
+import com.google.cloud.vision.v1.ImageAnnotatorClient;
+import com.google.cloud.vision.v1.ImageAnnotatorSettings;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Owns one long-lived ImageAnnotatorClient and coalesces concurrent OCR requests into batchAnnotateImages calls.
+ *
+ * A dispatcher thread waits for the first request, then keeps collecting for up to {@code window}, or until the
+ * batch reaches {@code maxBatchSize} images / {@code maxBatchBytes} of payload. Each batch is sent on its own
+ * thread (virtual with {@code spring.threads.virtual.enabled}) and the i-th response is routed back to the i-th
+ * caller. At most {@code maxConcurrentBatches} RPCs are in flight; that cap is a semaphore the dispatcher takes
+ * before sending, so while every permit is out new requests keep joining the next batch. The client (credential
+ * discovery and gRPC channel setup) is created off the startup path, by {@link UpstreamWarmup} in the background
+ * or by the first request if that comes sooner, so the application still starts without Google credentials.
+ *
+ * Each RPC has a deadline of {@code ocr.vision.timeout}; callers should wait at most {@link #callTimeout}. Every
+ * submitted future is completed, also when the batcher shuts down with requests queued or mid-batch.
+ */
+@Component
+public class VisionBatcher {
+
+    private record Pending(AnnotateImageRequest request, CompletableFuture<AnnotateImageResponse> future) {}
+
+    static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+
+    private final Callable<ImageAnnotatorClient> clientFactory;
+    private final Duration window;
+    private final int maxBatchSize;
+    private final long maxBatchBytes;
+    private final Duration timeout;
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Semaphore rpcPermits;
+    private final ExecutorService rpcExecutor;
+    private final Thread dispatcher;
+    private final Object clientLock = new Object();
+    private volatile ImageAnnotatorClient client;
+    private volatile boolean closed;
+
+    @Autowired
+    public VisionBatcher(@Value("${ocr.vision.endpoint:}") String endpoint,
+                         @Value("${ocr.vision.plaintext:false}") boolean plaintext,
+                         @Value("${ocr.vision.batch.window:20ms}") Duration window,
+                         @Value("${ocr.vision.batch.max-size:16}") int maxBatchSize,
+                         @Value("${ocr.vision.batch.max-bytes:8MB}") DataSize maxBatchBytes,
+                         @Value("${ocr.vision.batch.max-concurrent:4}") int maxConcurrentBatches,
+                         @Value("${ocr.vision.timeout:30s}") Duration timeout,
+                         @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this(() -> createClient(endpoint, plaintext, timeout), window, maxBatchSize, maxBatchBytes.toBytes(),
+                maxConcurrentBatches, timeout, virtualThreads);
+    }
+
+    VisionBatcher(Callable<ImageAnnotatorClient> clientFactory, Duration window, int maxBatchSize,
+                  long maxBatchBytes, int maxConcurrentBatches) {
+        this(clientFactory, window, maxBatchSize, maxBatchBytes, maxConcurrentBatches, DEFAULT_TIMEOUT, false);
+    }
+
+    VisionBatcher(Callable<ImageAnnotatorClient> clientFactory, Duration window, int maxBatchSize,
+                  long maxBatchBytes, int maxConcurrentBatches, Duration timeout, boolean virtualThreads) {
+        this.clientFactory = clientFactory;
+        this.window = window;
+        this.timeout = timeout;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxBatchBytes = maxBatchBytes;
+        this.rpcPermits = new Semaphore(Math.max(1, maxConcurrentBatches));
+        this.rpcExecutor = VirtualThreads.perTask("vision-rpc", virtualThreads);
+        this.dispatcher = daemon("vision-batcher").newThread(this::dispatchLoop);
+        this.dispatcher.start();
+    }
+
+    public static ImageAnnotatorClient createClient(String endpoint, boolean plaintext) throws IOException {
+        return createClient(endpoint, plaintext, null);
+    }
+
+    /**
+     * Builds a Vision client for the given endpoint ({@code host:port}, blank for Google's default).
+     * With {@code plaintext} the channel skips TLS and credentials, which is only meant for local stub servers.
+     * A non-null {@code rpcTimeout} replaces the library's deadline for batchAnnotateImages, retries included.
+     */
+    public static ImageAnnotatorClient createClient(String endpoint, boolean plaintext, Duration rpcTimeout) throws IOException {
+        ImageAnnotatorSettings.Builder settings = ImageAnnotatorSettings.newBuilder();
+        if (rpcTimeout != null) {
+            var batch = settings.batchAnnotateImagesSettings();
+            org.threeten.bp.Duration deadline = org.threeten.bp.Duration.ofMillis(rpcTimeout.toMillis());
+            batch.setRetrySettings(batch.getRetrySettings().toBuilder()
+                    .setInitialRpcTimeout(deadline)
+                    .setMaxRpcTimeout(deadline)
+                    .setTotalTimeout(deadline)
+                    .build());
+        }
+        if (endpoint != null && !endpoint.isBlank()) settings.setEndpoint(endpoint);
+        if (plaintext) {
+            settings.setTransportChannelProvider(InstantiatingGrpcChannelProvider.newBuilder()
+                    .setEndpoint(endpoint)
+                    .setChannelConfigurator(b -> b.usePlaintext())
+                    .build());
+            settings.setCredentialsProvider(NoCredentialsProvider.create());
+        }
+        return ImageAnnotatorClient.create(settings.build());
+    }
+
+    /** Creates the client now instead of on the first request; a failure is left for that request to retry. */
+    public void warmUp() {
+        try {
+            client();
+        } catch (Exception e) {
+            throw new IllegalStateException("Vision 클라이언트 생성 실패: " + e.getMessage(), e);
+        }
+    }
+
+    /** How long a caller should wait for a submitted request: the collection window plus the RPC deadline. */
+    public Duration callTimeout() {
+        return window.plus(timeout);
+    }
+
+    public CompletableFuture<AnnotateImageResponse> submit(AnnotateImageRequest request) {
+        CompletableFuture<AnnotateImageResponse> future = new CompletableFuture<>();
+        if (closed) {
+            future.completeExceptionally(closedError());
+            return future;
+        }
+        Pending pending = new Pending(request, future);
+        queue.add(pending);
+        // close() may have drained the queue between the check above and the add
+        if (closed && queue.remove(pending)) future.completeExceptionally(closedError());
+        return future;
+    }
+
+    private void dispatchLoop() {
+        Pending carry = null;
+        List<Pending> batch = null; // collected but not handed to dispatch yet
+        try {
+            while (!closed) {
+                Pending first = carry != null ? carry : queue.take();
+                carry = null;
+                batch = new ArrayList<>(maxBatchSize);
+                batch.add(first);
+                long bytes = first.request().getSerializedSize();
+                long deadline = System.nanoTime() + window.toNanos();
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) break;
+                    int size = next.request().getSerializedSize();
+                    if (bytes + size > maxBatchBytes) {
+                        carry = next; // starts the next batch
+                        break;
+                    }
+                    batch.add(next);
+                    bytes += size;
+                }
+                List<Pending> ready = batch;
+                batch = null;
+                if (!dispatch(ready)) break;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (batch != null) batch.forEach(p -> p.future().completeExceptionally(closedError()));
+            if (carry != null) carry.future().completeExceptionally(closedError());
+        }
+    }
+
+    // Waits for an RPC permit, then sends the batch; false once the batcher is shutting down
+    private boolean dispatch(List<Pending> batch) {
+        try {
+            rpcPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            batch.forEach(p -> p.future().completeExceptionally(closedError()));
+            return false;
+        }
+        try {
+            rpcExecutor.execute(() -> {
+                try {
+                    send(batch);
+                } finally {
+                    rpcPermits.release();
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            rpcPermits.release();
+            batch.forEach(p -> p.future().completeExceptionally(closedError()));
+            return false;
+        }
+    }
+
+    private void send(List<Pending> batch) {
+        // Callers that already gave up are not sent upstream
+        List<Pending> live = batch.stream().filter(p -> !p.future().isDone()).toList();
+        if (live.isEmpty()) return;
+        try {
+            List<AnnotateImageRequest> requests = live.stream().map(Pending::request).toList();
+            List<AnnotateImageResponse> responses = client().batchAnnotateImages(requests).getResponsesList();
+            for (int i = 0; i < live.size(); i++) {
+                if (i < responses.size()) {
+                    live.get(i).future().complete(responses.get(i));
+                } else {
+                    live.get(i).future().completeExceptionally(new IllegalStateException("Vision 응답 누락"));
+                }
+            }
+        } catch (Exception e) {
+            live.forEach(p -> p.future().completeExceptionally(e));
+        }
+    }
+
+    private ImageAnnotatorClient client() throws Exception {
+        ImageAnnotatorClient c = client;
+        if (c == null) {
+            synchronized (clientLock) {
+                c = client;
+                if (c == null) {
+                    c = clientFactory.call();
+                    client = c;
+                }
+            }
+        }
+        return c;
+    }
+
+    @PreDestroy
+    public void close() {
+        closed = true;
+        dispatcher.interrupt();
+        try {
+            dispatcher.join(1000); // it fails the batch it was collecting on the way out
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        rpcExecutor.shutdown();
+        Pending p;
+        while ((p = queue.poll()) != null) p.future().completeExceptionally(closedError());
+        try {
+            rpcExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (clientLock) {
+            if (client != null) client.close();
+            client = null;
+        }
+    }
+
+    private static IllegalStateException closedError() {
+        return new IllegalStateException("Vision batcher is closed");
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
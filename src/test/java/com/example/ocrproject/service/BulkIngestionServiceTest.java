@@ -0,0 +1,116 @@
+package com.example.ocrproject.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkIngestionServiceTest {
+
+    private final BulkIngestionService service =
+            new BulkIngestionService(null, null, 2, 10, DataSize.ofBytes(100), false);
+
+    @Test
+    void zipEntriesSkipNonImagesAndRejectOversizedEntries() throws IOException {
+        byte[] zip = zip(
+                "week1/", null,
+                "week1/mon.jpg", new byte[10],
+                "__MACOSX/week1/._mon.jpg", new byte[10],
+                "notes.txt", new byte[5],
+                "week1/TUE.PNG", new byte[100],
+                "big.jpeg", new byte[101]);
+
+        List<BulkIngestionService.Receipt> receipts = new ArrayList<>();
+        service.zipEntries(new ByteArrayInputStream(zip)).forEachRemaining(receipts::add);
+
+        assertEquals(List.of("week1/mon.jpg", "week1/TUE.PNG", "big.jpeg"),
+                receipts.stream().map(BulkIngestionService.Receipt::name).toList());
+        assertEquals(10, receipts.get(0).file().getSize());
+        assertEquals(100, receipts.get(1).file().getBytes().length);
+        assertNull(receipts.get(2).file());
+        assertNotNull(receipts.get(2).rejected());
+    }
+
+    @Test
+    void zipEntriesAreReadOnDemand() throws IOException {
+        byte[] zip = zip("a.jpg", new byte[10], "b.jpg", new byte[10]);
+        CountingStream in = new CountingStream(zip);
+        Iterator<BulkIngestionService.Receipt> it = service.zipEntries(in);
+        assertEquals(0, in.read);
+        assertEquals("a.jpg", it.next().name());
+        assertTrue(it.hasNext());
+        assertEquals("b.jpg", it.next().name());
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    void cancellingTheRequestStopsReadingReceipts() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        List<CompletableFuture<BulkIngestionService.Summary>> request = new ArrayList<>();
+        AtomicInteger read = new AtomicInteger();
+        Iterator<BulkIngestionService.Receipt> endless = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public BulkIngestionService.Receipt next() {
+                try {
+                    started.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                int n = read.incrementAndGet();
+                if (n == 3) request.get(0).cancel(true); // the client went away
+                return new BulkIngestionService.Receipt("r" + n, null, "rejected");
+            }
+        };
+        request.add(service.ingestAsync(endless, r -> {}));
+        started.countDown();
+
+        assertThrows(CancellationException.class, () -> request.get(0).join());
+        Thread.sleep(200);
+        assertEquals(3, read.get()); // max-files is 10
+    }
+
+    private static byte[] zip(Object... nameAndBytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (int i = 0; i < nameAndBytes.length; i += 2) {
+                zip.putNextEntry(new ZipEntry((String) nameAndBytes[i]));
+                if (nameAndBytes[i + 1] != null) zip.write((byte[]) nameAndBytes[i + 1]);
+                zip.closeEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static final class CountingStream extends ByteArrayInputStream {
+        int read;
+
+        CountingStream(byte[] buf) {
+            super(buf);
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            int n = super.read(b, off, len);
+            if (n > 0) read += n;
+            return n;
+        }
+    }
+}
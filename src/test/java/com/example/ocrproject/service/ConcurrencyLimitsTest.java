@@ -0,0 +1,155 @@
+package com.example.ocrproject.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimitsTest {
+
+    @Test
+    void limiterShedsAtTheLimitAndBacksOffOnFailures() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(2, 10, Duration.ofSeconds(5));
+        List<AdaptiveLimiter.Permit> held = new ArrayList<>();
+        for (int i = 0; i < 10; i++) held.add(limiter.tryAcquire());
+        assertFalse(held.contains(null));
+        assertNull(limiter.tryAcquire());
+
+        held.forEach(AdaptiveLimiter.Permit::failure);
+        assertTrue(limiter.limit() < 10);
+        for (int i = 0; i < 50; i++) limiter.tryAcquire().failure();
+        assertEquals(2, limiter.limit()); // never below min
+    }
+
+    @Test
+    void limiterGrowsBackWhenBusyAndFast() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(2, 10, Duration.ofSeconds(5));
+        for (int i = 0; i < 50; i++) limiter.tryAcquire().failure();
+        int floor = limiter.limit();
+        for (int round = 0; round < 50; round++) {
+            List<AdaptiveLimiter.Permit> held = new ArrayList<>();
+            AdaptiveLimiter.Permit p;
+            while ((p = limiter.tryAcquire()) != null) held.add(p);
+            held.forEach(AdaptiveLimiter.Permit::success);
+        }
+        assertTrue(limiter.limit() > floor);
+        assertTrue(limiter.limit() <= 10);
+    }
+
+    @Test
+    void permitIsReleasedOnce() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1, Duration.ofSeconds(5));
+        AdaptiveLimiter.Permit p = limiter.tryAcquire();
+        p.cancel();
+        p.failure(); // ignored
+        assertEquals(1, limiter.limit());
+        assertNotNull(limiter.tryAcquire());
+    }
+
+    @Test
+    void breakerOpensAfterConsecutiveFailuresAndProbesOnce() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(3, Duration.ofMillis(50));
+        breaker.onFailure(breaker.tryAcquire());
+        breaker.onFailure(breaker.tryAcquire());
+        breaker.onSuccess(breaker.tryAcquire()); // resets the run
+        breaker.onFailure(breaker.tryAcquire());
+        breaker.onFailure(breaker.tryAcquire());
+        CircuitBreaker.Admission third = breaker.tryAcquire();
+        assertNotNull(third);
+        breaker.onFailure(third);
+        assertTrue(breaker.isOpen());
+        assertNull(breaker.tryAcquire());
+
+        Thread.sleep(80);
+        assertFalse(breaker.isOpen());
+        CircuitBreaker.Admission probe = breaker.tryAcquire();
+        assertTrue(probe.probe());
+        assertNull(breaker.tryAcquire()); // everyone else waits for it
+        breaker.onFailure(probe);
+        assertTrue(breaker.isOpen());
+
+        Thread.sleep(80);
+        breaker.onSuccess(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        assertNotNull(breaker.tryAcquire());
+    }
+
+    @Test
+    void breakerIgnoresOutcomesOfCallsAdmittedBeforeItOpened() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(2, Duration.ofMillis(50));
+        CircuitBreaker.Admission slow = breaker.tryAcquire();
+        CircuitBreaker.Admission late = breaker.tryAcquire();
+        breaker.onFailure(breaker.tryAcquire());
+        breaker.onFailure(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+
+        breaker.onSuccess(slow); // admitted while closed, finished after the breaker opened
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertTrue(breaker.isOpen());
+
+        Thread.sleep(80);
+        CircuitBreaker.Admission probe = breaker.tryAcquire();
+        breaker.onSuccess(late); // not the probe: half-open stays half-open
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+        assertNull(breaker.tryAcquire());
+        breaker.onCancel(probe); // an abandoned probe frees the slot without an outcome
+        CircuitBreaker.Admission next = breaker.tryAcquire();
+        assertTrue(next.probe());
+        breaker.onSuccess(next);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        assertEquals(2L, breaker.stats().get("staleOutcomes"));
+    }
+
+    @Test
+    void asyncLimiterDrainsABurstOfCompletedCallsWithoutRecursing() {
+        AsyncLimiter limiter = new AsyncLimiter(1, 200_000, () -> new OverloadedException("full", 1));
+        CompletableFuture<Void> gate = new CompletableFuture<>();
+        CompletableFuture<Void> first = limiter.call(() -> gate);
+        List<CompletableFuture<Integer>> queued = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            int n = i;
+            queued.add(limiter.call(() -> CompletableFuture.completedFuture(n))); // each releases inside its run
+        }
+        assertEquals(100_000, limiter.queued());
+
+        gate.complete(null); // used to recurse once per queued call and overflow the stack
+        first.join();
+        assertEquals(99_999, (int) queued.get(99_999).join());
+        assertEquals(0, limiter.queued());
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void asyncLimiterShedsPastTheQueueBound() {
+        AsyncLimiter limiter = new AsyncLimiter(1, 2, () -> new OverloadedException("full", 1));
+        CompletableFuture<String> gate = new CompletableFuture<>();
+        CompletableFuture<String> running = limiter.call(() -> gate);
+        CompletableFuture<String> second = limiter.call(() -> CompletableFuture.completedFuture("b"));
+        CompletableFuture<String> third = limiter.call(() -> CompletableFuture.completedFuture("c"));
+        CompletableFuture<String> shed = limiter.call(() -> CompletableFuture.completedFuture("d"));
+        assertThrows(OverloadedException.class, () -> limiter.submit(() -> {}));
+
+        CompletionException e = assertThrows(CompletionException.class, shed::join);
+        assertInstanceOf(OverloadedException.class, e.getCause());
+        gate.complete("a");
+        assertEquals("a", running.join());
+        assertEquals("b", second.join());
+        assertEquals("c", third.join());
+        assertEquals("e", limiter.call(() -> CompletableFuture.completedFuture("e")).join());
+    }
+
+    @Test
+    void unlimitedNeverSheds() {
+        ConcurrencyLimits limits = ConcurrencyLimits.unlimited();
+        for (int i = 0; i < 1000; i++) {
+            assertNotNull(limits.upstream(ConcurrencyLimits.GEMINI).tryAcquire());
+            limits.geminiBreaker().onFailure(limits.geminiBreaker().tryAcquire());
+        }
+        assertNotNull(limits.geminiBreaker().tryAcquire());
+    }
+}
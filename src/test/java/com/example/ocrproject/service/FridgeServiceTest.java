@@ -0,0 +1,178 @@
+package com.example.ocrproject.service;
+
+import com.example.ocrproject.dto.RecipeSuggestion;
+import com.example.ocrproject.entity.FridgeItem;
+import com.example.ocrproject.entity.User;
+import com.example.ocrproject.repository.FridgeItemRepository;
+import com.example.ocrproject.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FridgeServiceTest {
+
+    private static final long USER = 1;
+    private static final String CATALOG = "계란말이\t계란,대파\t말아서 굽습니다.\n"
+            + "감자조림\t감자,양파\t간장에 졸입니다.\n"
+            + "김치찌개\t김치,두부,양파\t끓입니다.\n";
+
+    private final LocalDate today = LocalDate.now();
+    private final Map<Long, FridgeItem> rows = new HashMap<>();
+    private long nextId = 1;
+    private final FridgeItemRepository repository = inMemory();
+    private final UserRepository users = userReferences();
+
+    @Test
+    void addMergesRepeatsIntoOneRow(@TempDir Path dir) throws IOException {
+        RecipeEngine engine = new RecipeEngine(catalog(dir, CATALOG).toString());
+        FridgeService fridge = new FridgeService(repository, users, engine, 10);
+
+        fridge.add(USER, List.of(new FridgeService.Addition("계란", 2, today.plusDays(3)),
+                new FridgeService.Addition("대파", null, null), new FridgeService.Addition(" ", 1, null)));
+        List<FridgeService.Item> items = fridge.add(USER, List.of(new FridgeService.Addition("계란", null, today.plusDays(1))));
+
+        assertEquals(List.of("계란", "대파"), items.stream().map(FridgeService.Item::name).toList());
+        assertEquals(3, items.get(0).quantity());
+        assertEquals(today.plusDays(1), items.get(0).expiresAt()); // the earlier expiry wins
+        assertEquals(2, rows.size());
+        assertEquals(engine.recommend(List.of("계란", "대파"), 5), fridge.recommend(USER, 5));
+
+        // A service that has not seen the user yet loads the same fridge from the table
+        assertEquals(items, new FridgeService(repository, users, engine, 10).items(USER));
+    }
+
+    @Test
+    void consumeLowersTheQuantityThenRemovesTheItem(@TempDir Path dir) throws IOException {
+        RecipeEngine engine = new RecipeEngine(catalog(dir, CATALOG).toString());
+        FridgeService fridge = new FridgeService(repository, users, engine, 10);
+        long potato = fridge.add(USER, List.of(new FridgeService.Addition("감자", 2, null))).get(0).id();
+
+        assertTrue(fridge.consume(USER, potato, 1));
+        assertEquals(1, fridge.items(USER).get(0).quantity());
+        assertEquals("감자조림", fridge.recommend(USER, 5).get(0).name());
+
+        assertTrue(fridge.consume(USER, potato, 5));
+        assertEquals(List.of(), fridge.items(USER));
+        assertTrue(rows.isEmpty());
+        assertEquals(List.of(), fridge.recommend(USER, 5));
+        assertFalse(fridge.consume(USER, potato, 1));
+        assertFalse(fridge.consume(2, potato, 1));
+    }
+
+    @Test
+    void primaryMovesToWhatExpiresFirst(@TempDir Path dir) throws IOException {
+        RecipeEngine engine = new RecipeEngine(catalog(dir, CATALOG).toString());
+        FridgeService fridge = new FridgeService(repository, users, engine, 10);
+        fridge.add(USER, List.of(new FridgeService.Addition("계란", 1, today.plusDays(10)),
+                new FridgeService.Addition("대파", 1, today.plusDays(9)),
+                new FridgeService.Addition("양파", 1, today.plusDays(8))));
+        assertEquals(engine.recommend(List.of("양파", "대파", "계란"), 5), fridge.recommend(USER, 5));
+
+        fridge.add(USER, List.of(new FridgeService.Addition("김치", 1, today.plusDays(1))));
+        assertEquals(engine.recommend(List.of("김치", "양파", "대파", "계란"), 5), fridge.recommend(USER, 5));
+
+        // Buying eggs that expire sooner moves them ahead
+        fridge.add(USER, List.of(new FridgeService.Addition("계란", 1, today)));
+        assertEquals(engine.recommend(List.of("계란", "김치", "양파", "대파"), 5), fridge.recommend(USER, 5));
+
+        // Using up the kimchi hands its place to the onion
+        long kimchi = fridge.items(USER).stream().filter(i -> i.name().equals("김치")).findFirst().orElseThrow().id();
+        fridge.remove(USER, kimchi);
+        assertEquals(engine.recommend(List.of("계란", "양파", "대파"), 5), fridge.recommend(USER, 5));
+    }
+
+    @Test
+    void catalogReloadRebuildsTheView(@TempDir Path dir) throws IOException {
+        Path file = catalog(dir, CATALOG);
+        RecipeEngine engine = new RecipeEngine(file.toString());
+        FridgeService fridge = new FridgeService(repository, users, engine, 10);
+        fridge.add(USER, List.of(new FridgeService.Addition("두부", 1, today.plusDays(2)),
+                new FridgeService.Addition("계란", 1, today.plusDays(5)),
+                new FridgeService.Addition("양파", 1, null)));
+        List<String> fridgeOrder = List.of("두부", "계란", "양파");
+        assertEquals(engine.recommend(fridgeOrder, 5), fridge.recommend(USER, 5));
+
+        Files.writeString(file, CATALOG + "두부조림\t두부,양파\t간장에 졸입니다.\n");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 1000));
+        engine.reload();
+
+        List<String> names = fridge.recommend(USER, 5).stream().map(s -> s.name()).toList();
+        assertTrue(names.contains("두부조림"), names.toString());
+        assertEquals(engine.recommend(fridgeOrder, 5), fridge.recommend(USER, 5));
+    }
+
+    @Test
+    void aCommonIngredientOverALargeCatalogStaysCheap() {
+        // 계란 is in every recipe, so the pantry scores more than 2^16 recipes on each change
+        List<RecipeEngine.Recipe> recipes = new ArrayList<>();
+        for (int r = 0; r < 150_000; r++) {
+            recipes.add(new RecipeEngine.Recipe("r" + r, r % 1000 == 0 ? List.of("계란", "양파") : List.of("계란", "두부"), ""));
+        }
+        RecipeEngine engine = new RecipeEngine(recipes);
+        FridgeService fridge = new FridgeService(repository, users, engine, 10);
+
+        List<RecipeSuggestion> top = assertTimeout(Duration.ofSeconds(3), () -> {
+            fridge.add(USER, List.of(new FridgeService.Addition("계란", 2, today.plusDays(5)),
+                    new FridgeService.Addition("두부", 1, today.plusDays(6))));
+            long egg = fridge.items(USER).get(0).id();
+            fridge.add(USER, List.of(new FridgeService.Addition("양파", 1, today.plusDays(1))));
+            fridge.consume(USER, egg, 1);
+            return fridge.recommend(USER, 3);
+        });
+        assertEquals(engine.recommend(List.of("양파", "계란", "두부"), 3), top);
+        assertEquals(List.of("r0", "r1000", "r2000"), top.stream().map(RecipeSuggestion::name).toList());
+    }
+
+    private static Path catalog(Path dir, String tsv) throws IOException {
+        Path file = dir.resolve("recipes.tsv");
+        Files.writeString(file, tsv);
+        return file;
+    }
+
+    // Only the calls FridgeService makes; rows are kept as the saved instances, like a persistence context
+    private FridgeItemRepository inMemory() {
+        return (FridgeItemRepository) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{FridgeItemRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findByUserIdOrderByAddedAtAscIdAsc" -> rows.values().stream()
+                            .filter(r -> r.getUser().getId().equals(args[0]))
+                            .sorted(Comparator.comparing(FridgeItem::getAddedAt).thenComparing(FridgeItem::getId))
+                            .toList();
+                    case "findByUserIdAndIngredientIgnoreCase" -> rows.values().stream()
+                            .filter(r -> r.getUser().getId().equals(args[0]) && r.getIngredient().equalsIgnoreCase((String) args[1]))
+                            .findFirst();
+                    case "findByIdAndUserId" -> Optional.ofNullable(rows.get((Long) args[0]))
+                            .filter(r -> r.getUser().getId().equals(args[1]));
+                    case "save" -> {
+                        FridgeItem row = (FridgeItem) args[0];
+                        if (row.getId() == null) row.setId(nextId++);
+                        rows.put(row.getId(), row);
+                        yield row;
+                    }
+                    case "delete" -> {
+                        rows.remove(((FridgeItem) args[0]).getId());
+                        yield null;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static UserRepository userReferences() {
+        return (UserRepository) Proxy.newProxyInstance(FridgeServiceTest.class.getClassLoader(), new Class<?>[]{UserRepository.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("getReferenceById")) throw new UnsupportedOperationException(method.getName());
+                    User user = new User();
+                    user.setId((Long) args[0]);
+                    return user;
+                });
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.ocrproject.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeminiServiceTest {
+
+    @Test
+    void splitsBatchByNonceMarkersOnly() {
+        String nonce = "5f3a9c";
+        String response = GeminiService.batchMarker(nonce, 2) + "\n두 번째 항목\n\n"
+                + GeminiService.batchMarker(nonce, 1) + "\n1. 오븐을 예열합니다.\n2. @@deadbeef#3@@ 는 그대로 둡니다.\n\n"
+                + GeminiService.batchMarker(nonce, 3) + "\n   \n";
+        Map<Integer, String> items = GeminiService.splitBatch(response, nonce);
+        assertEquals(2, items.size()); // item 3 came back empty
+        assertEquals("두 번째 항목", items.get(2));
+        assertEquals("1. 오븐을 예열합니다.\n2. @@deadbeef#3@@ 는 그대로 둡니다.", items.get(1));
+    }
+
+    @Test
+    void numberedRowsSkipRowsItCannotPlace() {
+        String answer = "1: 계란\n99999999999999999999: 우유\n2.\n3) 양파, 대파\n7: 범위 밖\n설명 문구";
+        assertEquals(Map.of(1, "계란", 2, "", 3, "양파, 대파"), GeminiService.numberedRows(answer, 3));
+    }
+}
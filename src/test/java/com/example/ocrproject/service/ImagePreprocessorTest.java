@@ -0,0 +1,156 @@
+package com.example.ocrproject.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImagePreprocessorTest {
+
+    @Test
+    void appliesExifRotationAndCapsLongestEdge() throws Exception {
+        // Landscape 400x200: left half black, right half white, tagged "rotate 90 CW" (orientation 6)
+        BufferedImage img = new BufferedImage(400, 200, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, 400, 200);
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, 200, 200);
+        g.dispose();
+        byte[] jpeg = withExifOrientation(encodeJpeg(img, 0.95f), 6);
+
+        ImagePreprocessor pre = new ImagePreprocessor(true, 100, true, 0.9f);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(pre.process(new ByteArrayInputStream(jpeg), out));
+
+        BufferedImage result = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(50, result.getWidth());
+        assertEquals(100, result.getHeight());
+        assertEquals(1, result.getRaster().getNumBands());
+        // The source's left (black) half is now on top
+        assertTrue(result.getRaster().getSample(25, 10, 0) < 64);
+        assertTrue(result.getRaster().getSample(25, 90, 0) > 192);
+    }
+
+    @Test
+    void undecodableInputIsLeftToTheCaller() throws Exception {
+        ImagePreprocessor pre = new ImagePreprocessor(true, 2048, true, 0.85f);
+        assertFalse(pre.process(new ByteArrayInputStream("not an image".getBytes()), new ByteArrayOutputStream()));
+    }
+
+    @Test
+    void malformedExifIsIgnored() throws Exception {
+        byte[] jpeg = encodeJpeg(new BufferedImage(40, 20, BufferedImage.TYPE_INT_RGB), 0.9f);
+        byte[] negativeOffset = withApp1(jpeg, new byte[]{'M', 'M', 0, 42, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xF0});
+        byte[] pastTheEnd = withApp1(jpeg, new byte[]{'I', 'I', 42, 0, 0x70, 0, 0, 0, 0, 0});
+        for (byte[] bytes : new byte[][]{negativeOffset, pastTheEnd}) {
+            assertEquals(1, ImagePreprocessor.readExifOrientation(new ByteArrayInputStream(bytes)));
+            assertTrue(new ImagePreprocessor(true, 2048, true, 0.85f).process(new ByteArrayInputStream(bytes), new ByteArrayOutputStream()));
+        }
+    }
+
+    @Test
+    void truncatedUploadIsSentAsIs() throws Exception {
+        byte[] jpeg = withExifOrientation(encodeJpeg(syntheticReceipt(600, 800), 0.95f), 6);
+        ImagePreprocessor pre = new ImagePreprocessor(true, 100, true, 0.85f);
+        // Cut inside the JFIF segment (the Exif scan runs out of data) and after the Exif one (the decoder does)
+        assertEquals(1, ImagePreprocessor.readExifOrientation(new ByteArrayInputStream(Arrays.copyOf(jpeg, 10))));
+        for (int cut : new int[]{3, 10, 30, 200}) {
+            byte[] truncated = Arrays.copyOf(jpeg, cut);
+            assertArrayEquals(truncated, pre.prepare(new MockMultipartFile("file", truncated)).toByteArray());
+        }
+    }
+
+    @Test
+    void cmykJpegIsConvertedOrSentAsIs() throws Exception {
+        // Four-component JPEG without an Adobe marker; older ImageIO versions refuse to decode it
+        WritableRaster cmyk = Raster.createInterleavedRaster(DataBuffer.TYPE_BYTE, 400, 300, 4, null);
+        for (int y = 0; y < 300; y++) {
+            for (int x = 0; x < 400; x++) cmyk.setPixel(x, y, new int[]{x % 256, y % 256, 0, 40});
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            writer.write(null, new IIOImage(cmyk, null, null), null);
+        } finally {
+            writer.dispose();
+        }
+        byte[] jpeg = out.toByteArray();
+
+        byte[] sent = new ImagePreprocessor(true, 100, true, 0.85f).prepare(new MockMultipartFile("file", jpeg)).toByteArray();
+        if (!Arrays.equals(jpeg, sent)) {
+            BufferedImage result = ImageIO.read(new ByteArrayInputStream(sent));
+            assertEquals(100, result.getWidth());
+            assertEquals(1, result.getRaster().getNumBands());
+        }
+    }
+
+    private static BufferedImage syntheticReceipt(int w, int h) {
+        BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        g.setColor(new Color(240, 236, 228));
+        g.fillRect(0, 0, w, h);
+        g.setColor(new Color(30, 30, 30));
+        g.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 64));
+        for (int y = 150, i = 0; y < h - 100; y += 90, i++) {
+            g.drawString(String.format("ITEM %03d  EGG 10P        %,8d", i, 3000 + i * 170), 120, y);
+        }
+        g.dispose();
+        return img;
+    }
+
+    private static byte[] encodeJpeg(BufferedImage img, float quality) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImagePreprocessor writer = new ImagePreprocessor(true, 0, false, quality);
+        // Reuse the production encoder at the requested quality; max-edge 0 means no resize
+        writer.process(new ByteArrayInputStream(png(img)), out);
+        return out.toByteArray();
+    }
+
+    private static byte[] png(BufferedImage img) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(img, "png", out);
+        return out.toByteArray();
+    }
+
+    // Inserts a minimal big-endian Exif APP1 segment carrying only the orientation tag after the JFIF APP0
+    private static byte[] withExifOrientation(byte[] jpeg, int orientation) {
+        return withApp1(jpeg, new byte[]{
+                'M', 'M', 0, 42, 0, 0, 0, 8,            // header, IFD0 at offset 8
+                0, 1,                                   // one entry
+                0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, (byte) orientation, 0, 0,
+                0, 0, 0, 0                              // no next IFD
+        });
+    }
+
+    // Inserts an Exif APP1 segment with the given TIFF data after the JFIF APP0
+    private static byte[] withApp1(byte[] jpeg, byte[] tiff) {
+        int segLen = 2 + 6 + tiff.length;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int app0End = 4 + (((jpeg[4] & 0xFF) << 8) | (jpeg[5] & 0xFF));
+        out.write(jpeg, 0, app0End);
+        out.write(0xFF);
+        out.write(0xE1);
+        out.write(segLen >> 8);
+        out.write(segLen & 0xFF);
+        out.writeBytes(new byte[]{'E', 'x', 'i', 'f', 0, 0});
+        out.writeBytes(tiff);
+        out.write(jpeg, app0End, jpeg.length - app0End);
+        return out.toByteArray();
+    }
+}
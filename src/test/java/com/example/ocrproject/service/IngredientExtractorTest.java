@@ -0,0 +1,80 @@
+package com.example.ocrproject.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngredientExtractorTest {
+
+    private static final String RECEIPT = """
+            이마트 성수점
+            2024-05-01 18:32
+            국산양파1.5kg          4,980
+            서울우유 1L            2,850
+            게란 30구              7,990
+            CJ 비비고 왕교자        8,980
+            합계                  24,800
+            카드결제              24,800
+            """;
+
+    private final IngredientLexicon lexicon = new IngredientLexicon("");
+
+    @Test
+    void knownLinesNeverReachGemini() {
+        // No GeminiService: any remote call would fail the test
+        IngredientExtractor extractor = new IngredientExtractor(null, lexicon, PipelineMetrics.noop(), "tiered");
+        IngredientExtractor.Extraction e = extractor.extract("""
+                홈플러스 강서점
+                대파 1단     2,990
+                두부 300g    1,500
+                총액         4,490
+                """);
+        assertEquals(List.of("대파", "두부"), e.ingredients());
+        assertEquals(2, e.localLines());
+        assertEquals(0, e.remoteLines());
+        assertEquals(2, e.skippedLines());
+    }
+
+    @Test
+    void classifiesEachLine() {
+        IngredientExtractor extractor = new IngredientExtractor(null, lexicon, PipelineMetrics.noop(), "local");
+        IngredientExtractor.Extraction e = extractor.extract(RECEIPT);
+        assertEquals(List.of("양파", "우유", "계란"), e.ingredients());
+        assertEquals(3, e.localLines());
+        assertEquals(4, e.skippedLines());
+        assertEquals(4L, extractor.stats().get("skippedLines"));
+    }
+
+    @Test
+    void noiseLines() {
+        assertTrue(IngredientExtractor.isNoise("24,800"));
+        assertTrue(IngredientExtractor.isNoise("부 가 세   2,254"));
+        assertTrue(IngredientExtractor.isNoise("TEL 02-123-4567"));
+        assertFalse(IngredientExtractor.isNoise("Tomato Paste 2"));
+        assertTrue(IngredientExtractor.isNoise("[할인] -1,000"));
+        assertTrue(IngredientExtractor.isNoise("면세물품가액 12,000"));
+        assertTrue(IngredientExtractor.isNoise("신한카드 승인 24,800"));
+        assertTrue(IngredientExtractor.isNoise("GS25 편의점"));
+    }
+
+    @Test
+    void noiseWordsInsideItemNamesKeepTheLine() {
+        // "라면세트" contains 면세, "사과세트" contains 과세, and a discount tag on an item is not a discount line
+        assertFalse(IngredientExtractor.isNoise("라면 세트 3,980"));
+        assertFalse(IngredientExtractor.isNoise("사과 세트 12,000"));
+        assertFalse(IngredientExtractor.isNoise("삼겹살 할인 9,900"));
+
+        IngredientExtractor extractor = new IngredientExtractor(null, lexicon, PipelineMetrics.noop(), "tiered");
+        IngredientExtractor.Extraction e = extractor.extract("""
+                라면 세트       3,980
+                사과 세트      12,000
+                삼겹살 할인     9,900
+                할인           -1,000
+                """);
+        assertEquals(List.of("라면", "사과", "돼지고기"), e.ingredients());
+        assertEquals(3, e.localLines());
+        assertEquals(1, e.skippedLines());
+    }
+}
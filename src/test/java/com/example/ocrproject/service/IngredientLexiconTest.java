@@ -0,0 +1,57 @@
+package com.example.ocrproject.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngredientLexiconTest {
+
+    private final IngredientLexicon lexicon = new IngredientLexicon("");
+
+    @Test
+    void extractsAliasesAndMisreadsInTextOrder() {
+        String receipt = """
+                이마트 성수점
+                국산양파1.5kg      4,980
+                서울우유 1L        2,850
+                게란 30구          7,990
+                합계              15,820
+                """;
+        assertEquals(List.of("양파", "우유", "계란"), lexicon.extract(receipt));
+    }
+
+    @Test
+    void longestMatchAndWordBoundaries() {
+        assertEquals(List.of("고추장"), lexicon.extract("태양초고추장 500g"));
+        assertEquals(List.of("대파"), lexicon.extract("Green Onions"));
+        assertEquals(List.of(), lexicon.extract("eggplant"));
+        assertEquals(List.of("계란"), lexicon.extract("EGGS x12"));
+    }
+
+    @Test
+    void englishNameForApi() {
+        assertEquals("egg", lexicon.english("달걀"));
+        assertEquals("spring onions", lexicon.english(" 대파 "));
+        assertEquals("바질", lexicon.english("바질"));
+    }
+
+    @Test
+    void reloadsChangedFile(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("lexicon.tsv");
+        Files.writeString(file, "egg\t계란\tegg\t달걀\n");
+        IngredientLexicon fromFile = new IngredientLexicon(file.toString());
+        assertEquals(List.of(), fromFile.extract("바질 1팩"));
+
+        Files.writeString(file, "egg\t계란\tegg\t달걀\nbasil\t바질\tbasil\n");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 1000));
+        fromFile.reload();
+        assertEquals(List.of("바질"), fromFile.extract("바질 1팩"));
+        assertEquals(2, fromFile.size());
+    }
+}
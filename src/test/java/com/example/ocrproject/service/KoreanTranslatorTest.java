@@ -0,0 +1,32 @@
+package com.example.ocrproject.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KoreanTranslatorTest {
+
+    private final KoreanTranslator translator = new KoreanTranslator();
+
+    @Test
+    void longestMatchWins() {
+        assertEquals("참기름 1 tbs", translator.translate("Sesame Oil 1 tbs"));
+        assertEquals("대파 3", translator.translate("green onions 3"));
+        assertEquals("양파, 기름", translator.translate("ONION, oil"));
+    }
+
+    @Test
+    void onlyWholeWords() {
+        assertEquals("Eggplant", translator.translate("Eggplant"));
+        assertEquals("Riced cauliflower", translator.translate("Riced cauliflower"));
+        String untouched = "Gochujang";
+        assertSame(untouched, translator.translate(untouched));
+    }
+
+    @Test
+    void translatesLists() {
+        assertEquals(List.of("소고기 불고기", "계란 2"), translator.translateAll(List.of("Beef Bulgogi", "Eggs 2")));
+    }
+}
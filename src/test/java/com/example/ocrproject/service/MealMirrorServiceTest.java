@@ -0,0 +1,118 @@
+package com.example.ocrproject.service;
+
+import com.example.ocrproject.entity.Meal;
+import com.example.ocrproject.repository.MealRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MealMirrorServiceTest {
+
+    private static final Map<String, String> DICTIONARY = Map.of("egg", "달걀", "fried rice", "볶음밥", "rice", "쌀");
+
+    private final Map<String, Meal> rows = new HashMap<>();
+    private final List<String> saved = new ArrayList<>();
+    private final MealRepository repository = inMemory();
+
+    @Test
+    void importsTheDumpAndIndexesIngredients(@TempDir Path dir) throws IOException {
+        Path dump = dump(dir, 1, meal("2", "Egg Fried Rice", "Egg", "Rice"), meal("1", "Omelette", "egg"));
+        MealMirrorService mirror = new MealMirrorService(repository, new KoreanTranslator(DICTIONARY), dump.toString());
+        assertFalse(mirror.isReady());
+
+        mirror.refresh();
+        assertTrue(mirror.isReady());
+        assertEquals("달걀 볶음밥", mirror.meal("2").name());
+        assertEquals(List.of("달걀 2", "쌀 2"), mirror.meal("2").need());
+        assertEquals(List.of("1", "2"), mirror.mealIdsFor("EGG"));
+        assertEquals(List.of("2"), mirror.mealIdsFor("rice"));
+        assertEquals(List.of(), mirror.mealIdsFor("beef"));
+    }
+
+    @Test
+    void refreshRewritesOnlyChangedMealsAndDropsRemovedOnes(@TempDir Path dir) throws IOException {
+        Path dump = dump(dir, 1, meal("1", "Omelette", "Egg"), meal("2", "Egg Fried Rice", "Egg", "Rice"),
+                meal("3", "Rice Bowl", "Rice"));
+        MealMirrorService mirror = new MealMirrorService(repository, new KoreanTranslator(DICTIONARY), dump.toString());
+        mirror.refresh();
+        saved.clear();
+
+        // Same timestamp: the dump is not read again
+        mirror.refresh();
+        assertEquals(List.of(), saved);
+
+        dump(dir, 2, meal("1", "Omelette", "Egg"), meal("2", "Egg Fried Rice", "Egg", "Beef"));
+        mirror.refresh();
+        assertEquals(List.of("2"), saved);
+        assertEquals(Set.of("1", "2"), rows.keySet());
+        assertNull(mirror.meal("3"));
+        assertEquals(List.of(), mirror.mealIdsFor("rice"));
+        assertEquals(List.of("2"), mirror.mealIdsFor("beef"));
+    }
+
+    @Test
+    void aNewDictionaryRewritesTheKoreanFields(@TempDir Path dir) throws IOException {
+        Path dump = dump(dir, 1, meal("1", "Omelette", "Egg"), meal("2", "Egg Fried Rice", "Egg", "Rice"));
+        new MealMirrorService(repository, new KoreanTranslator(DICTIONARY), dump.toString()).refresh();
+        saved.clear();
+
+        // Same dump, restarted with an updated dictionary
+        Map<String, String> updated = new HashMap<>(DICTIONARY);
+        updated.put("egg", "계란");
+        MealMirrorService mirror = new MealMirrorService(repository, new KoreanTranslator(updated), dump.toString());
+        mirror.refresh();
+        assertEquals(List.of("1", "2"), saved.stream().sorted().toList());
+        assertEquals("계란 볶음밥", mirror.meal("2").name());
+        assertEquals(List.of("계란 2"), mirror.meal("1").need());
+
+        // And the same dictionary again skips everything
+        saved.clear();
+        new MealMirrorService(repository, new KoreanTranslator(updated), dump.toString()).refresh();
+        assertEquals(List.of(), saved);
+    }
+
+    private static String meal(String id, String name, String... ingredients) {
+        StringBuilder json = new StringBuilder("{\"idMeal\":\"" + id + "\",\"strMeal\":\"" + name + "\",\"strInstructions\":\"Cook.\"");
+        for (int i = 0; i < ingredients.length; i++) {
+            json.append(",\"strIngredient").append(i + 1).append("\":\"").append(ingredients[i]).append('"')
+                    .append(",\"strMeasure").append(i + 1).append("\":\"2\"");
+        }
+        return json.append('}').toString();
+    }
+
+    private static Path dump(Path dir, long version, String... meals) throws IOException {
+        Path dump = dir.resolve("meals.json");
+        Files.writeString(dump, "{\"meals\":[" + String.join(",", meals) + "]}");
+        Files.setLastModifiedTime(dump, FileTime.fromMillis(version * 1_000));
+        return dump;
+    }
+
+    // Only the calls MealMirrorService makes; rows are kept as the saved instances, like a persistence context
+    @SuppressWarnings("unchecked")
+    private MealRepository inMemory() {
+        return (MealRepository) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{MealRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findAll" -> new ArrayList<>(rows.values());
+                    case "saveAll" -> {
+                        for (Meal m : (Iterable<Meal>) args[0]) {
+                            rows.put(m.getId(), m);
+                            saved.add(m.getId());
+                        }
+                        yield args[0];
+                    }
+                    case "deleteAllById" -> {
+                        for (Object id : (Iterable<?>) args[0]) rows.remove(id);
+                        yield null;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.ocrproject.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OcrResultCacheTest {
+
+    @Test
+    void sweepDeletesExpiredThenOldestPastTheLimit(@TempDir Path dir) throws IOException {
+        OcrResultCache cache = new OcrResultCache(100, Duration.ofHours(1), dir.toString(), 1_000, Runnable::run);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 8; i++) {
+            cache.put("k" + i, "x".repeat(100));
+            // k0 is older than the TTL; the rest get older the lower their number
+            long age = i == 0 ? Duration.ofHours(2).toMillis() : (8 - i) * 60_000L;
+            Files.setLastModifiedTime(dir.resolve("k" + i + ".txt"), FileTime.fromMillis(now - age));
+        }
+        Files.writeString(dir.resolve("k9123.tmp"), "partial");
+        Files.setLastModifiedTime(dir.resolve("k9123.tmp"), FileTime.fromMillis(now - 120_000));
+
+        cache.sweep();
+        assertFalse(Files.exists(dir.resolve("k0.txt")));
+        assertFalse(Files.exists(dir.resolve("k9123.tmp")));
+        assertEquals(7L, (long) cache.stats().get("diskFiles"));
+
+        // Writes past the limit start a sweep right away (inline here, on a daemon thread in production), keeping
+        // the newest entries under 90% of it
+        for (int i = 8; i < 12; i++) cache.put("k" + i, "x".repeat(100));
+        assertTrue(cache.stats().get("diskBytes") <= 900);
+        assertFalse(Files.exists(dir.resolve("k1.txt")));
+        assertTrue(Files.exists(dir.resolve("k11.txt")));
+        assertEquals("x".repeat(100), new OcrResultCache(100, Duration.ofHours(1), dir.toString(), 1_000).get("k11"));
+    }
+
+    @Test
+    void overwritingAnEntryDoesNotCountItTwice(@TempDir Path dir) {
+        OcrResultCache cache = new OcrResultCache(100, Duration.ofHours(1), dir.toString(), 1_000, Runnable::run);
+        cache.put("k", "x".repeat(100));
+        cache.put("k", "x".repeat(300));
+        cache.put("k", "x".repeat(200));
+        assertEquals(1L, (long) cache.stats().get("diskFiles"));
+        assertEquals(200L, (long) cache.stats().get("diskBytes"));
+        assertEquals(0L, (long) cache.stats().get("diskDeleted"));
+    }
+}
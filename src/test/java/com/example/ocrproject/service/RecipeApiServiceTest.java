@@ -0,0 +1,123 @@
+package com.example.ocrproject.service;
+
+import com.example.ocrproject.dto.RecipeSuggestion;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs RecipeApiService against a local TheMealDB stand-in with injected lookup latency.
+ */
+class RecipeApiServiceTest {
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private String base;
+    private final Set<String> slowIds = ConcurrentHashMap.newKeySet();
+    private static final long LOOKUP_LATENCY_MS = 50;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        serverThreads = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "mealdb-stub");
+            t.setDaemon(true);
+            return t;
+        });
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(serverThreads);
+        server.createContext("/api/filter.php", ex -> respond(ex, IntStream.rangeClosed(1, 20)
+                .mapToObj(i -> "{\"idMeal\":\"" + i + "\"}")
+                .collect(Collectors.joining(",", "{\"meals\":[", "]}"))));
+        server.createContext("/api/lookup.php", ex -> {
+            String id = ex.getRequestURI().getQuery().substring("i=".length());
+            sleep(slowIds.contains(id) ? 10_000 : LOOKUP_LATENCY_MS);
+            respond(ex, "{\"meals\":[{\"idMeal\":\"" + id + "\",\"strMeal\":\"Egg Fried Rice " + id + "\","
+                    + "\"strInstructions\":\"Fry.\",\"strIngredient1\":\"Egg\",\"strMeasure1\":\"2\"}]}");
+        });
+        server.start();
+        base = "http://localhost:" + server.getAddress().getPort() + "/api/";
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    void slowLookupsAreDroppedAtTheDeadline() {
+        slowIds.add("3");
+        RecipeApiService service = new RecipeApiService(base, Duration.ofSeconds(1), 6);
+
+        long start = System.nanoTime();
+        List<RecipeSuggestion> recipes = service.fetchRecipesByPrimaryIngredients(List.of("계란", "밥"));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(14, recipes.size()); // 15-meal cap minus the one that never answered
+        assertTrue(elapsedMs < 2_000, "took " + elapsedMs + " ms");
+        assertTrue(recipes.stream().noneMatch(r -> r.name().endsWith(" 3")));
+        assertTrue(recipes.get(0).name().startsWith("계란 Fried 밥"));
+    }
+
+    @Test
+    void streamingReadersStopAtTheCapAndKeepOnlyNeededFields() throws IOException {
+        JsonFactory json = new JsonFactory();
+        String filter = IntStream.rangeClosed(1, 500)
+                .mapToObj(i -> "{\"strMeal\":\"M\",\"strMealThumb\":{\"x\":[1,2]},\"idMeal\":\"" + i + "\"}")
+                .collect(Collectors.joining(",", "{\"meals\":[", "]}"));
+        try (JsonParser p = json.createParser(filter.getBytes(StandardCharsets.UTF_8))) {
+            assertEquals(List.of("1", "2", "3"), RecipeApiService.readMealIds(p, 3));
+            assertTrue(p.currentLocation().getByteOffset() < filter.length() / 100, "read past the cap");
+        }
+        try (JsonParser p = json.createParser("{\"meals\":null}")) {
+            assertEquals(List.of(), RecipeApiService.readMealIds(p, 3));
+        }
+
+        String lookup = "{\"meals\":[{\"idMeal\":\"7\",\"strMeal\":\"Bibimbap\",\"strTags\":null,\"strIngredient2\":\"Rice\","
+                + "\"strMeasure2\":\"1 cup\",\"strIngredient1\":\"Egg\",\"strMeasure1\":\" \",\"strIngredient3\":\"\","
+                + "\"strIngredient21\":\"Ignored\",\"strInstructions\":\"Mix.\"}]}";
+        try (JsonParser p = json.createParser(lookup)) {
+            RecipeApiService.Meal meal = RecipeApiService.readMeal(p);
+            assertEquals(new RecipeApiService.Meal("Bibimbap", "Mix.", List.of("Egg", "Rice 1 cup")), meal);
+        }
+        try (JsonParser p = json.createParser("{\"meals\":[]}")) {
+            assertNull(RecipeApiService.readMeal(p));
+        }
+    }
+
+    private static void respond(HttpExchange ex, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().add("Content-Type", "application/json");
+        ex.sendResponseHeaders(200, body.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
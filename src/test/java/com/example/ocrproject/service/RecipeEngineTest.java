@@ -0,0 +1,128 @@
+package com.example.ocrproject.service;
+
+import com.example.ocrproject.dto.RecipeSuggestion;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecipeEngineTest {
+
+    private final RecipeEngine engine = new RecipeEngine("");
+
+    @Test
+    void pantryMatchesRecommendAfterEveryChange() {
+        RecipeEngine.Pantry pantry = engine.pantry();
+        pantry.add("계란", true);
+        pantry.add("김치", true);
+        pantry.add("양파", false);
+        pantry.add("돼지고기", false);
+        assertEquals(engine.recommend(List.of("계란", "김치", "양파", "돼지고기"), 5), pantry.top(5));
+
+        // 계란 used up: 양파 becomes primary
+        pantry.remove("계란", true);
+        pantry.remove("양파", false);
+        pantry.add("양파", true);
+        assertEquals(engine.recommend(List.of("김치", "양파", "돼지고기"), 5), pantry.top(5));
+
+        // Overlapping matches: "대파" is matched by both, and must stay weighted while either is present
+        pantry.add("파", false);
+        pantry.add("대파", false);
+        pantry.remove("파", false);
+        assertEquals(engine.recommend(List.of("김치", "양파", "돼지고기", "대파"), 5), pantry.top(5));
+
+        for (String s : List.of("김치", "양파")) pantry.remove(s, true);
+        for (String s : List.of("돼지고기", "대파")) pantry.remove(s, false);
+        assertEquals(List.of(), pantry.top(5));
+    }
+
+    @Test
+    void reloadSwapsTheSnapshotWhenTheFileChanges(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("recipes.tsv");
+        Files.writeString(file, "# test\n계란말이\t계란,대파\t말아서 굽습니다.\n");
+        RecipeEngine fromFile = new RecipeEngine(file.toString());
+        assertEquals(List.of(new RecipeSuggestion("계란말이", List.of("계란", "대파"), "말아서 굽습니다.", 3)),
+                fromFile.recommend(List.of("계란"), 5));
+        RecipeEngine.Pantry pantry = fromFile.pantry();
+        pantry.add("계란", true);
+
+        Files.writeString(file, "계란말이\t계란,대파\t말아서 굽습니다.\n계란국\t계란,계란,물\t끓입니다.\n");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 1000));
+        fromFile.reload();
+
+        assertEquals(2, fromFile.size());
+        assertEquals("계란국", fromFile.recommend(List.of("계란"), 5).get(0).name()); // counted twice
+        assertFalse(pantry.isCurrent());
+        assertEquals(1, pantry.top(5).size()); // still answers from the snapshot it was built on
+        assertTrue(fromFile.pantry().isCurrent());
+    }
+
+    @Test
+    void bundledCatalogLoads() {
+        assertEquals(33, engine.size());
+        assertTrue((Long) engine.stats().get("bytesPerRecipe") > 0);
+    }
+
+    @Test
+    void scoringStaysLinearPastSixtyFiveThousandMatches() {
+        // Every recipe matches, so the score map grows past 2^16 slots; a hash that only used 16 bits took seconds here
+        List<RecipeEngine.Recipe> recipes = new ArrayList<>();
+        for (int r = 0; r < 150_000; r++) {
+            recipes.add(new RecipeEngine.Recipe("r" + r, r % 1000 == 0 ? List.of("계란", "대파") : List.of("계란"), ""));
+        }
+        RecipeEngine large = new RecipeEngine(recipes);
+        List<RecipeSuggestion> top = assertTimeout(Duration.ofSeconds(2), () -> large.recommend(List.of("대파", "계란"), 3));
+        assertEquals(List.of("r0", "r1000", "r2000"), top.stream().map(RecipeSuggestion::name).toList());
+        assertEquals(6, top.get(0).matchCount());
+    }
+
+    @Test
+    void countsMatchAMapThroughResizes() {
+        RecipeEngine.Counts counts = new RecipeEngine.Counts(4);
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random rnd = new Random(7);
+        for (int i = 0; i < 50_000; i++) {
+            int key = rnd.nextInt(5_000);
+            int delta = rnd.nextInt(7) - 3;
+            assertEquals(expected.merge(key, delta, Integer::sum).intValue(), counts.add(key, delta));
+        }
+        for (int key = 0; key < 5_000; key++) assertEquals(expected.getOrDefault(key, 0).intValue(), counts.get(key));
+    }
+
+    @Test
+    void substringMatchingAgreesWithContainsInEitherDirection() {
+        // One recipe per distinct need, so the recipes recommended for an ingredient are the needs it matched
+        Random rnd = new Random(11);
+        Set<String> needs = new TreeSet<>();
+        while (needs.size() < 300) needs.add(word(rnd, "ab파대양", 1 + rnd.nextInt(5)));
+        List<RecipeEngine.Recipe> recipes = new ArrayList<>();
+        for (String need : needs) recipes.add(new RecipeEngine.Recipe(need, List.of(need), ""));
+        RecipeEngine small = new RecipeEngine(recipes);
+
+        for (int q = 0; q < 500; q++) {
+            String ingredient = word(rnd, "AB파대양", 1 + rnd.nextInt(6));
+            String lower = ingredient.toLowerCase();
+            Set<String> expected = new TreeSet<>();
+            for (String need : needs) {
+                if (need.contains(lower) || lower.contains(need)) expected.add(need);
+            }
+            Set<String> actual = new TreeSet<>();
+            for (RecipeSuggestion s : small.recommend(List.of(ingredient), needs.size())) actual.add(s.name());
+            assertEquals(expected, actual, ingredient);
+        }
+        assertTrue((Long) small.stats().get("indexBytes") > 0);
+    }
+
+    private static String word(Random rnd, String alphabet, int length) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) sb.append(alphabet.charAt(rnd.nextInt(alphabet.length())));
+        return sb.toString();
+    }
+}
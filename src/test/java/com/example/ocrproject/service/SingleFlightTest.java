@@ -0,0 +1,105 @@
+package com.example.ocrproject.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String> flights = new SingleFlight<>("test", PipelineMetrics.noop());
+
+    @Test
+    void concurrentCallersShareOneCall() {
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        CompletableFuture<String> a = flights.execute("k", () -> {
+            calls.incrementAndGet();
+            return upstream;
+        });
+        CompletableFuture<String> b = flights.execute("k", () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("other");
+        });
+        assertEquals(1, calls.get());
+        assertEquals(1, flights.inFlight());
+
+        upstream.complete("v");
+        assertEquals("v", a.join());
+        assertEquals("v", b.join());
+        assertEquals(0, flights.inFlight());
+
+        // Nothing is kept after completion
+        assertEquals("fresh", flights.execute("k", () -> CompletableFuture.completedFuture("fresh")).join());
+    }
+
+    @Test
+    void errorsReachEveryCaller() {
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        CompletableFuture<String> a = flights.execute("k", () -> upstream);
+        CompletableFuture<String> b = flights.execute("k", () -> upstream);
+        IllegalStateException boom = new IllegalStateException("boom");
+        upstream.completeExceptionally(boom);
+
+        assertSame(boom, assertThrows(CompletionException.class, a::join).getCause());
+        assertSame(boom, assertThrows(CompletionException.class, b::join).getCause());
+    }
+
+    @Test
+    void callIsCancelledOnlyWhenEveryCallerGivesUp() {
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        CompletableFuture<String> a = flights.execute("k", () -> upstream);
+        CompletableFuture<String> b = flights.execute("k", () -> upstream);
+
+        a.cancel(true);
+        assertFalse(upstream.isCancelled());
+        b.cancel(true);
+        assertTrue(upstream.isCancelled());
+        assertEquals(0, flights.inFlight());
+
+        CompletableFuture<String> c = flights.execute("k", () -> CompletableFuture.completedFuture("again"));
+        assertEquals("again", c.join());
+    }
+
+    @Test
+    void callStartedAfterEveryCallerLeftIsCancelled() {
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        CompletableFuture<String> a = flights.execute("k", () -> {
+            // Callers cannot reach their futures before execute returns, so give up from inside the supplier
+            leaveFlight("k");
+            return upstream;
+        });
+        assertTrue(a.isCancelled());
+        assertTrue(upstream.isCancelled());
+        assertEquals(0, flights.inFlight());
+    }
+
+    @Test
+    void supplierFailureFailsTheFlight() {
+        CompletableFuture<String> f = flights.execute("k", () -> {
+            throw new IllegalArgumentException("bad");
+        });
+        assertInstanceOf(IllegalArgumentException.class, assertThrows(CompletionException.class, f::join).getCause());
+        assertEquals(0, flights.inFlight());
+    }
+
+    // What the last caller's future does when it is cancelled: Flight.leave()
+    private void leaveFlight(String key) {
+        try {
+            Field field = SingleFlight.class.getDeclaredField("flights");
+            field.setAccessible(true);
+            Object flight = ((Map<?, ?>) field.get(flights)).get(key);
+            Method leave = flight.getClass().getDeclaredMethod("leave");
+            leave.setAccessible(true);
+            leave.invoke(flight);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.ocrproject.service;
+
+import com.example.ocrproject.entity.Translation;
+import com.example.ocrproject.repository.TranslationRepository;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranslationMemoryTest {
+
+    private static final String TEXT = "Fry the egg.";
+
+    private final Map<String, Translation> rows = new HashMap<>();
+    private final List<String> queries = new ArrayList<>(); // reads that reached the table
+
+    @Test
+    void aMissIsNotLookedUpAgainUntilTheTranslationIsStored() {
+        TranslationMemory memory = new TranslationMemory(inMemory(), 100, 100, Duration.ofMinutes(1));
+        assertEquals(TEXT, memory.findOrRequest(TEXT));
+        assertEquals(TEXT, memory.findOrRequest(TEXT));
+        assertFalse(memory.contains(TEXT));
+        assertEquals(List.of("findById"), queries);
+        assertEquals(List.of(TEXT), memory.drainPending(10));
+
+        memory.put(TEXT, "달걀을 굽습니다.");
+        assertEquals("달걀을 굽습니다.", memory.findOrRequest(TEXT));
+        assertTrue(memory.contains(TEXT));
+        assertEquals(List.of("findById"), queries);
+    }
+
+    @Test
+    void aMissExpires() {
+        TranslationMemory memory = new TranslationMemory(inMemory(), 100, 100, Duration.ZERO);
+        assertNull(memory.find(TEXT));
+        // Stored by another instance sharing the table
+        rows.put(TranslationMemory.key(TEXT), new Translation(TranslationMemory.key(TEXT), TEXT, "달걀을 굽습니다."));
+        assertEquals("달걀을 굽습니다.", memory.find(TEXT));
+        assertEquals(List.of("findById", "findById"), queries);
+    }
+
+    // Only the calls TranslationMemory makes
+    private TranslationRepository inMemory() {
+        return (TranslationRepository) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{TranslationRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().endsWith("ById")) queries.add(method.getName());
+                    return switch (method.getName()) {
+                        case "findById" -> Optional.ofNullable(rows.get((String) args[0]));
+                        case "existsById" -> rows.containsKey((String) args[0]);
+                        case "save" -> {
+                            Translation t = (Translation) args[0];
+                            rows.put(t.getId(), t);
+                            yield t;
+                        }
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    };
+                });
+    }
+}
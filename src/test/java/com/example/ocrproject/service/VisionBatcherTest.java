@@ -0,0 +1,88 @@
+package com.example.ocrproject.service;
+
+import com.google.cloud.vision.v1.*;
+import com.google.protobuf.ByteString;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs VisionBatcher against {@link VisionStub}, a loopback gRPC stand-in for Vision. Throughput against a
+ * client per call is measured by VisionBatcherBenchmark in the jmh source set.
+ */
+class VisionBatcherTest {
+
+    private VisionStub stub;
+    private String endpoint;
+
+    @BeforeEach
+    void startStub() throws Exception {
+        stub = new VisionStub(30);
+        endpoint = stub.endpoint();
+    }
+
+    @AfterEach
+    void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    void concurrentRequestsShareOneBatchAndGetTheirOwnResponse() throws Exception {
+        VisionBatcher batcher = new VisionBatcher(() -> VisionBatcher.createClient(endpoint, true),
+                Duration.ofMillis(100), 16, 8L << 20, 2);
+        try {
+            List<CompletableFuture<AnnotateImageResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) futures.add(batcher.submit(request("receipt-" + i)));
+            for (int i = 0; i < 8; i++) {
+                assertEquals("receipt-" + i, futures.get(i).get(5, TimeUnit.SECONDS).getFullTextAnnotation().getText());
+            }
+            assertEquals(1, stub.rpcCount.get());
+        } finally {
+            batcher.close();
+        }
+    }
+
+    @Test
+    void batchesAreSplitAtMaxSize() throws Exception {
+        VisionBatcher batcher = new VisionBatcher(() -> VisionBatcher.createClient(endpoint, true),
+                Duration.ofMillis(100), 3, 8L << 20, 2);
+        try {
+            List<CompletableFuture<AnnotateImageResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < 7; i++) futures.add(batcher.submit(request("r" + i)));
+            for (CompletableFuture<AnnotateImageResponse> f : futures) f.get(5, TimeUnit.SECONDS);
+            assertEquals(3, stub.rpcCount.get());
+        } finally {
+            batcher.close();
+        }
+    }
+
+    @Test
+    void closeFailsRequestsStillBeingCollected() throws Exception {
+        // The 30 s window keeps all three in the batch being collected when close() comes
+        VisionBatcher batcher = new VisionBatcher(() -> VisionBatcher.createClient(endpoint, true),
+                Duration.ofSeconds(30), 16, 8L << 20, 2);
+        List<CompletableFuture<AnnotateImageResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) futures.add(batcher.submit(request("r" + i)));
+        Thread.sleep(100);
+        batcher.close();
+        for (CompletableFuture<AnnotateImageResponse> f : futures) {
+            assertTrue(f.handle((r, e) -> e != null).get(5, TimeUnit.SECONDS));
+        }
+        assertTrue(batcher.submit(request("late")).isCompletedExceptionally());
+        assertEquals(0, stub.rpcCount.get());
+    }
+
+    private static AnnotateImageRequest request(String content) {
+        return AnnotateImageRequest.newBuilder()
+                .addFeatures(Feature.newBuilder().setType(Feature.Type.TEXT_DETECTION))
+                .setImage(Image.newBuilder().setContent(ByteString.copyFromUtf8(content)))
+                .build();
+    }
+}
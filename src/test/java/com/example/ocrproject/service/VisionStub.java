@@ -0,0 +1,55 @@
+package com.example.ocrproject.service;
+
+import com.google.cloud.vision.v1.*;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.stub.StreamObserver;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loopback gRPC stand-in for the Vision ImageAnnotator service. Each image is answered with its own bytes
+ * (UTF-8) as the recognized text, after a fixed latency per batch call.
+ */
+class VisionStub implements AutoCloseable {
+
+    final AtomicInteger rpcCount = new AtomicInteger();
+    private final Server server;
+
+    VisionStub(long latencyMs) throws IOException {
+        server = ServerBuilder.forPort(0)
+                .addService(new ImageAnnotatorGrpc.ImageAnnotatorImplBase() {
+                    @Override
+                    public void batchAnnotateImages(BatchAnnotateImagesRequest request,
+                                                    StreamObserver<BatchAnnotateImagesResponse> observer) {
+                        rpcCount.incrementAndGet();
+                        try {
+                            Thread.sleep(latencyMs);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        BatchAnnotateImagesResponse.Builder out = BatchAnnotateImagesResponse.newBuilder();
+                        for (AnnotateImageRequest r : request.getRequestsList()) {
+                            out.addResponses(AnnotateImageResponse.newBuilder()
+                                    .setFullTextAnnotation(TextAnnotation.newBuilder()
+                                            .setText(r.getImage().getContent().toStringUtf8())));
+                        }
+                        observer.onNext(out.build());
+                        observer.onCompleted();
+                    }
+                })
+                .maxInboundMessageSize(64 << 20)
+                .build()
+                .start();
+    }
+
+    String endpoint() {
+        return "localhost:" + server.getPort();
+    }
+
+    @Override
+    public void close() {
+        server.shutdownNow();
+    }
+}